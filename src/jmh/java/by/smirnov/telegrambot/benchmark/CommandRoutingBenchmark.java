@@ -0,0 +1,90 @@
+package by.smirnov.telegrambot.benchmark;
+
+import by.smirnov.telegrambot.command.CommandContext;
+import by.smirnov.telegrambot.command.CommandHandler;
+import by.smirnov.telegrambot.command.CommandRouter;
+import by.smirnov.telegrambot.config.BotConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор текста сообщения и поиск обработчика в {@link CommandRouter}. Обработчики пустые.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandRoutingBenchmark {
+
+    private static final String BOT_NAME = "bench_bot";
+    private static final long OWNER = 1L;
+
+    @Param({"/start", "/start@bench_bot", "/send hello everyone", "check my data", "just some text"})
+    String text;
+
+    private CommandRouter router;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        BotConfig botConfig = new BotConfig();
+        botConfig.setBotName(BOT_NAME);
+        botConfig.setOwnerId(OWNER);
+        List<CommandHandler> handlers = new ArrayList<>();
+        handlers.add(handler("/start", List.of(), false));
+        handlers.add(handler("/help", List.of(), false));
+        handlers.add(handler("/register", List.of("register"), false));
+        handlers.add(handler("/mydata", List.of("check my data"), false));
+        handlers.add(handler("/deletedata", List.of("delete my data"), false));
+        handlers.add(handler("/settings", List.of(), false));
+        handlers.add(handler("/send", List.of(), true));
+        router = new CommandRouter(botConfig, handlers, new SimpleMeterRegistry());
+        message = Updates.message(OWNER, text);
+    }
+
+    @Benchmark
+    public boolean route() {
+        return router.route(message);
+    }
+
+    private static CommandHandler handler(String command, List<String> aliases, boolean ownerOnly) {
+        return new CommandHandler() {
+            @Override
+            public String command() {
+                return command;
+            }
+
+            @Override
+            public List<String> aliases() {
+                return aliases;
+            }
+
+            @Override
+            public boolean ownerOnly() {
+                return ownerOnly;
+            }
+
+            @Override
+            public void handle(CommandContext context) {
+                //измеряется только маршрутизация
+            }
+        };
+    }
+}
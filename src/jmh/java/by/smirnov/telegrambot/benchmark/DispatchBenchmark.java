@@ -0,0 +1,74 @@
+package by.smirnov.telegrambot.benchmark;
+
+import by.smirnov.telegrambot.config.DispatcherConfig;
+import by.smirnov.telegrambot.dispatch.UpdateDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Путь onUpdateReceived: передача апдейта в {@link UpdateDispatcher} и обработка на воркере.
+ * Обработчик пустой, поэтому измеряется стоимость самой диспетчеризации (очереди, MDC, метрики).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @Param({"1", "1000"})
+    int chats;
+
+    private UpdateDispatcher dispatcher;
+    private Update[] updates;
+    private Consumer<Update> handler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DispatcherConfig config = new DispatcherConfig();
+        config.setWorkers(16);
+        config.setQueueDepth(1000);
+        config.setShutdownTimeoutMs(10_000);
+        dispatcher = new UpdateDispatcher(config, new SimpleMeterRegistry());
+        dispatcher.start();
+        updates = new Update[chats];
+        for (int i = 0; i < chats; i++) {
+            updates[i] = Updates.update(i, 1_000_000L + i, "hello");
+        }
+        handler = update -> { };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatch(Cursor cursor) {
+        dispatcher.dispatch(updates[cursor.next++ % updates.length], handler);
+    }
+}
@@ -0,0 +1,111 @@
+package by.smirnov.telegrambot.benchmark;
+
+import by.smirnov.telegrambot.config.CacheConfig;
+import by.smirnov.telegrambot.config.PrivacyConfig;
+import by.smirnov.telegrambot.config.RegistrationConfig;
+import by.smirnov.telegrambot.repository.UserRepository;
+import by.smirnov.telegrambot.service.PurgeBuffer;
+import by.smirnov.telegrambot.service.RegistrationBuffer;
+import by.smirnov.telegrambot.service.UserCache;
+import by.smirnov.telegrambot.service.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UserServiceImpl#registerUser} на встроенном PostgreSQL с реальной схемой из schema.sql.
+ * known - повторный /start, отсекается кэшем; fresh - новый пользователь, попадает в буфер регистраций;
+ * batch - синхронная запись полной пачки одним insert, время в пересчете на одного пользователя.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegisterUserBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long KNOWN_CHAT_ID = 1L;
+
+    private final AtomicLong nextChatId = new AtomicLong(1_000_000L);
+    private EmbeddedPostgres postgres;
+    private RegistrationBuffer buffer;
+    private UserServiceImpl userService;
+    private Message known;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RegistrationConfig registrationConfig = new RegistrationConfig();
+        registrationConfig.setBatchSize(BATCH_SIZE);
+        registrationConfig.setFlushIntervalMs(1000);
+        buffer = new RegistrationBuffer(registrationConfig, new JdbcTemplate(dataSource), registry);
+        buffer.start();
+
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setKnownUsers(1_000_000);
+        cacheConfig.setUsers(10_000);
+        UserRepository repository = Mockito.mock(UserRepository.class); //registerUser в репозиторий не ходит
+        UserCache cache = new UserCache(cacheConfig, repository);
+        PrivacyConfig privacyConfig = new PrivacyConfig();
+        privacyConfig.setPurgeBatchSize(BATCH_SIZE);
+        privacyConfig.setPurgedTtlMs(600_000);
+        PurgeBuffer purgeBuffer = new PurgeBuffer(privacyConfig, new JdbcTemplate(dataSource), registry);
+        userService = new UserServiceImpl(repository, cache, buffer, purgeBuffer, registry);
+
+        known = Updates.message(KNOWN_CHAT_ID, "/start");
+        userService.registerUser(known);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        buffer.stop();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void known() {
+        userService.registerUser(known);
+    }
+
+    @Benchmark
+    public void fresh() {
+        userService.registerUser(Updates.message(nextChatId.getAndIncrement(), "/start"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            userService.registerUser(Updates.message(nextChatId.getAndIncrement(), "/start"));
+        }
+        buffer.flush();
+    }
+}
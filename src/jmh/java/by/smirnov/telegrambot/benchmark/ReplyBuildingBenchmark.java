@@ -0,0 +1,95 @@
+package by.smirnov.telegrambot.benchmark;
+
+import by.smirnov.telegrambot.template.Keyboards;
+import by.smirnov.telegrambot.template.Templates;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vdurmont.emoji.EmojiParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_DELETE_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_MY_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_REGISTER;
+import static by.smirnov.telegrambot.constants.BotConstants.SMILE_BLUSH;
+import static by.smirnov.telegrambot.constants.BotConstants.START_TEXT;
+
+/**
+ * Сборка ответа на /start до отправки в сеть: текст с эмодзи и клавиатура, сериализованные так же,
+ * как это делает executeAsync. Варианты perCall - сборка на каждый вызов, как было до {@link Templates}
+ * и {@link Keyboards}; prebuilt - текущий путь через заранее подготовленные шаблоны и клавиатуры.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplyBuildingBenchmark {
+
+    private static final long CHAT_ID = 1_000_001L;
+    private static final String FIRST_NAME = "Ivan";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Templates templates;
+    private Keyboards keyboards;
+
+    @Setup
+    public void setUp() throws TelegramApiValidationException {
+        templates = new Templates();
+        keyboards = new Keyboards();
+    }
+
+    @Benchmark
+    public String startTextPerCall() {
+        return EmojiParser.parseToUnicode(String.format(START_TEXT, FIRST_NAME, SMILE_BLUSH));
+    }
+
+    @Benchmark
+    public String startTextPrebuilt() {
+        return templates.start().fill(FIRST_NAME);
+    }
+
+    @Benchmark
+    public String startReplyPerCall() throws JsonProcessingException {
+        SendMessage message = new SendMessage(String.valueOf(CHAT_ID),
+                EmojiParser.parseToUnicode(String.format(START_TEXT, FIRST_NAME, SMILE_BLUSH)));
+        message.setReplyMarkup(mainMenu());
+        return mapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String startReplyPrebuilt() throws JsonProcessingException {
+        SendMessage message = new SendMessage(String.valueOf(CHAT_ID), templates.start().fill(FIRST_NAME));
+        message.setReplyMarkup(keyboards.mainMenu());
+        return mapper.writeValueAsString(message);
+    }
+
+    private static ReplyKeyboardMarkup mainMenu() {
+        KeyboardRow first = new KeyboardRow();
+        first.add("weather");
+        first.add("get random joke");
+        KeyboardRow second = new KeyboardRow();
+        second.add(BUTTON_REGISTER);
+        second.add(BUTTON_MY_DATA);
+        second.add(BUTTON_DELETE_DATA);
+        ReplyKeyboardMarkup keyboard = new ReplyKeyboardMarkup();
+        keyboard.setKeyboard(List.of(first, second));
+        return keyboard;
+    }
+}
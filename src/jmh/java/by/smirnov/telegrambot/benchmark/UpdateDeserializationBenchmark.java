@@ -0,0 +1,53 @@
+package by.smirnov.telegrambot.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Десериализация апдейта из тела запроса webhook (или ответа getUpdates) в {@link Update}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateDeserializationBenchmark {
+
+    private byte[] body;
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() {
+        body = String.format(Updates.MESSAGE_JSON, 1_000_001L, 1_000_001L).getBytes(StandardCharsets.UTF_8);
+        mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        reader = mapper.readerFor(Update.class);
+    }
+
+    @Benchmark
+    public Update readValue() throws IOException {
+        return mapper.readValue(body, Update.class);
+    }
+
+    @Benchmark
+    public Update objectReader() throws IOException {
+        return reader.readValue(body);
+    }
+}
@@ -0,0 +1,42 @@
+package by.smirnov.telegrambot.benchmark;
+
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Апдейты и сообщения для бенчмарков в том виде, в каком их отдает Bot API.
+ */
+final class Updates {
+
+    static final String MESSAGE_JSON = "{\"update_id\":100000001,\"message\":{\"message_id\":42,"
+            + "\"from\":{\"id\":%d,\"is_bot\":false,\"first_name\":\"Ivan\",\"last_name\":\"Petrov\","
+            + "\"username\":\"ivan_petrov\",\"language_code\":\"ru\"},"
+            + "\"chat\":{\"id\":%d,\"first_name\":\"Ivan\",\"last_name\":\"Petrov\","
+            + "\"username\":\"ivan_petrov\",\"type\":\"private\"},\"date\":1700000000,\"text\":\"/start\","
+            + "\"entities\":[{\"offset\":0,\"length\":6,\"type\":\"bot_command\"}]}}";
+
+    private Updates() {
+    }
+
+    static Message message(long chatId, String text) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        chat.setFirstName("Ivan");
+        chat.setLastName("Petrov");
+        chat.setUserName("ivan_petrov");
+        Message message = new Message();
+        message.setMessageId(42);
+        message.setChat(chat);
+        message.setText(text);
+        return message;
+    }
+
+    static Update update(int updateId, long chatId, String text) {
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(message(chatId, text));
+        return update;
+    }
+}
@@ -0,0 +1,136 @@
+package by.smirnov.telegrambot.loadtest;
+
+import by.smirnov.telegrambot.broadcast.BroadcastService;
+import by.smirnov.telegrambot.model.Broadcast;
+import by.smirnov.telegrambot.repository.BroadcastRepository;
+import by.smirnov.telegrambot.service.RegistrationBuffer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный прогон бота целиком: long polling, диспетчер, команды, очередь отправки и рассылка
+ * работают против {@link StubBotApi} и встроенного PostgreSQL, без обращений к Telegram.
+ * Первая фаза - поток апдейтов от виртуальных пользователей (/start, затем /help), отчет - p50/p99
+ * времени ответа. Вторая - рассылка всем зарегистрированным, отчет - время до статуса DONE.
+ * Запуск: mvn -P load-test test, параметры - {@link LoadTestSettings}.
+ */
+@Tag("load")
+@Slf4j
+@AutoConfigureMetrics //в тестах Spring Boot не создает PrometheusMeterRegistry, а он нужен MetricsServer
+@SpringBootTest(properties = {
+        "bot.name=load_test_bot",
+        "bot.token=load-test-token",
+        "bot.owner=1",
+        "cron.scheduler=-",
+        "spring.sql.init.mode=always"
+})
+class BotLoadTest {
+
+    private static final long FIRST_CHAT_ID = 1_000_000L;
+    private static final LoadTestSettings SETTINGS = new LoadTestSettings();
+    private static final SimpleMeterRegistry REGISTRY = new SimpleMeterRegistry();
+    private static final Timer REPLY_LATENCY = Timer.builder("loadtest.reply.latency")
+            .publishPercentiles(0.5, 0.99)
+            .register(REGISTRY);
+    private static final StubBotApi STUB = new StubBotApi(SETTINGS, REPLY_LATENCY);
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private BroadcastService broadcastService;
+
+    @Autowired
+    private BroadcastRepository broadcastRepository;
+
+    @Autowired
+    private RegistrationBuffer registrationBuffer;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        STUB.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("bot.api.base-url", STUB::baseUrl);
+        registry.add("bot.broadcast.rate-per-second", SETTINGS::getBroadcastRate);
+        registry.add("bot.broadcast.per-chat-interval-ms", () -> 0);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        STUB.stop();
+        postgres.close();
+    }
+
+    @Test
+    void load() throws InterruptedException {
+        long expectedReplies = (long) SETTINGS.getUsers() * SETTINGS.getMessagesPerUser();
+        long start = System.nanoTime();
+        for (int round = 0; round < SETTINGS.getMessagesPerUser(); round++) {
+            String text = round == 0 ? "/start" : "/help";
+            for (int user = 0; user < SETTINGS.getUsers(); user++) {
+                STUB.send(FIRST_CHAT_ID + user, text);
+            }
+        }
+        boolean replied = await(() -> STUB.replies() >= expectedReplies);
+        long updatesMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("updates: {} in {} ms, {} replies/s, reply latency p50 {} ms, p99 {} ms, max {} ms, 429 sent: {}",
+                STUB.replies(), updatesMillis, STUB.replies() * 1000 / Math.max(updatesMillis, 1),
+                percentile(0.5), percentile(0.99), (long) REPLY_LATENCY.max(TimeUnit.MILLISECONDS), STUB.rejected());
+        assertTrue(replied, "not all updates were answered in time");
+
+        registrationBuffer.flush(); //все виртуальные пользователи должны быть в tgbot.users до рассылки
+        long delivered = STUB.unsolicited();
+        start = System.nanoTime();
+        long id = broadcastService.submit(List.of("load test broadcast"), null);
+        boolean finished = await(() -> broadcastRepository.findById(id)
+                .map(broadcast -> broadcast.getStatus() == Broadcast.Status.DONE)
+                .orElse(false));
+        long broadcastMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("broadcast: {} messages in {} ms, {} messages/s",
+                STUB.unsolicited() - delivered, broadcastMillis,
+                (STUB.unsolicited() - delivered) * 1000 / Math.max(broadcastMillis, 1));
+        assertTrue(finished, "broadcast did not finish in time");
+    }
+
+    private static long percentile(double percentile) {
+        for (ValueAtPercentile value : REPLY_LATENCY.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return (long) value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(SETTINGS.getTimeoutSeconds()).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package by.smirnov.telegrambot.loadtest;
+
+import lombok.Getter;
+
+/**
+ * Параметры нагрузочного прогона, задаются системными свойствами loadtest.*,
+ * например mvn -P load-test test -Dloadtest.users=1000000 -Dloadtest.latency-ms=50.
+ */
+@Getter
+class LoadTestSettings {
+
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final int messagesPerUser = Integer.getInteger("loadtest.messages-per-user", 3);
+    private final int queueDepth = Integer.getInteger("loadtest.queue-depth", 10_000); //апдейты, ожидающие getUpdates
+    private final int stubThreads = Integer.getInteger("loadtest.stub-threads", 64);
+    private final long latencyMs = Long.getLong("loadtest.latency-ms", 20); //задержка каждого ответа заглушки
+    private final double tooManyRequestsRate = Double.parseDouble(System.getProperty("loadtest.429-rate", "0"));
+    private final int retryAfterSeconds = Integer.getInteger("loadtest.retry-after", 1);
+    private final int maxSendsPerSecond = Integer.getInteger("loadtest.max-sends-per-second", 0); //0 - без лимита
+    private final int broadcastRate = Integer.getInteger("loadtest.broadcast-rate", 1000);
+    private final long timeoutSeconds = Long.getLong("loadtest.timeout-seconds", 600);
+}
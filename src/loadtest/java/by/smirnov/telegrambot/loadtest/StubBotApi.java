@@ -0,0 +1,261 @@
+package by.smirnov.telegrambot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Заглушка Bot API на встроенном HTTP-сервере JDK. Отдает апдейты из очереди через getUpdates,
+ * принимает sendMessage/editMessageText/setMyCommands и прочие служебные методы.
+ * Умеет добавлять задержку к каждому ответу, отвечать 429 с заданной вероятностью
+ * и ограничивать число отправок в секунду так же, как это делает Telegram.
+ * Время от выдачи апдейта боту до ответа в тот же чат пишется в {@link Timer}.
+ */
+@Slf4j
+class StubBotApi {
+
+    private static final String GET_UPDATES = GetUpdates.PATH; //имена методов в URL библиотека пишет строчными
+    private static final String SEND_MESSAGE = SendMessage.PATH;
+    private static final String EDIT_MESSAGE_TEXT = EditMessageText.PATH;
+    private static final int OK = 200;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long MAX_POLL_MILLIS = 1000; //короткий long polling, чтобы бот быстро останавливался
+
+    private final LoadTestSettings settings;
+    private final Timer replyLatency;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<Incoming> incoming;
+    private final Map<Long, Queue<Long>> awaitingReply = new ConcurrentHashMap<>();
+    private final AtomicInteger nextUpdateId = new AtomicInteger(1);
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+    private final AtomicLong replies = new AtomicLong();
+    private final AtomicLong unsolicited = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger windowSends = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubBotApi(LoadTestSettings settings, Timer replyLatency) {
+        this.settings = settings;
+        this.replyLatency = replyLatency;
+        this.incoming = new LinkedBlockingQueue<>(settings.getQueueDepth());
+    }
+
+    void start() throws IOException {
+        executor = Executors.newFixedThreadPool(settings.getStubThreads());
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Адрес для bot.api.base-url: к нему библиотека дописывает токен и имя метода.
+     */
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Ставит сообщение пользователя в очередь getUpdates; блокирует, пока очередь заполнена.
+     */
+    void send(long chatId, String text) throws InterruptedException {
+        incoming.put(new Incoming(chatId, text));
+    }
+
+    long replies() {
+        return replies.get();
+    }
+
+    long unsolicited() {
+        return unsolicited.get();
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1);
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] bytes = body.readAllBytes();
+                request = bytes.length == 0 ? mapper.createObjectNode() : mapper.readTree(bytes);
+            }
+            pause(settings.getLatencyMs());
+            if (GET_UPDATES.equals(method)) {
+                respond(exchange, OK, ok(updates(request)));
+            } else if (SEND_MESSAGE.equals(method) || EDIT_MESSAGE_TEXT.equals(method)) {
+                if (throttled()) {
+                    rejected.incrementAndGet();
+                    respond(exchange, TOO_MANY_REQUESTS, tooManyRequests());
+                    return;
+                }
+                long chatId = request.path("chat_id").asLong();
+                if (SEND_MESSAGE.equals(method)) {
+                    recordReply(chatId);
+                }
+                respond(exchange, OK, ok(message(chatId)));
+            } else { //setMyCommands, deleteWebhook, answerCallbackQuery и прочие методы с ответом true
+                respond(exchange, OK, ok(mapper.getNodeFactory().booleanNode(true)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ArrayNode updates(JsonNode request) throws InterruptedException {
+        int limit = request.path("limit").asInt(100);
+        long wait = Math.min(TimeUnit.SECONDS.toMillis(request.path("timeout").asLong(0)), MAX_POLL_MILLIS);
+        ArrayNode result = mapper.createArrayNode();
+        Incoming next = incoming.poll(wait, TimeUnit.MILLISECONDS);
+        while (next != null) {
+            result.add(update(next));
+            awaitingReply.computeIfAbsent(next.chatId, key -> new ConcurrentLinkedQueue<>()).add(System.nanoTime());
+            next = result.size() < limit ? incoming.poll() : null;
+        }
+        return result;
+    }
+
+    private ObjectNode update(Incoming message) {
+        ObjectNode update = mapper.createObjectNode();
+        update.put("update_id", nextUpdateId.getAndIncrement()); //библиотека отбрасывает апдейты с меньшим id
+        ObjectNode body = update.putObject("message");
+        body.put("message_id", nextMessageId.getAndIncrement());
+        body.put("date", System.currentTimeMillis() / 1000);
+        body.put("text", message.text);
+        body.putObject("from")
+                .put("id", message.chatId)
+                .put("is_bot", false)
+                .put("first_name", "User" + message.chatId)
+                .put("language_code", "ru");
+        body.set("chat", chat(message.chatId));
+        if (message.text.startsWith("/")) {
+            int end = message.text.indexOf(' ');
+            body.putArray("entities").addObject()
+                    .put("offset", 0)
+                    .put("length", end < 0 ? message.text.length() : end)
+                    .put("type", "bot_command");
+        }
+        return update;
+    }
+
+    private ObjectNode message(long chatId) {
+        ObjectNode message = mapper.createObjectNode();
+        message.put("message_id", nextMessageId.getAndIncrement());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.set("chat", chat(chatId));
+        return message;
+    }
+
+    private ObjectNode chat(long chatId) {
+        return mapper.createObjectNode()
+                .put("id", chatId)
+                .put("type", "private")
+                .put("first_name", "User" + chatId);
+    }
+
+    private void recordReply(long chatId) {
+        Queue<Long> pending = awaitingReply.get(chatId);
+        Long receivedAt = pending == null ? null : pending.poll();
+        if (receivedAt == null) { //рассылка или второй ответ на один апдейт
+            unsolicited.incrementAndGet();
+            return;
+        }
+        if (pending.isEmpty()) {
+            awaitingReply.remove(chatId, pending);
+        }
+        replyLatency.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+        replies.incrementAndGet();
+    }
+
+    private boolean throttled() {
+        if (ThreadLocalRandom.current().nextDouble() < settings.getTooManyRequestsRate()) {
+            return true;
+        }
+        if (settings.getMaxSendsPerSecond() <= 0) {
+            return false;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long current = windowStart.get();
+        if (current != second && windowStart.compareAndSet(current, second)) {
+            windowSends.set(0);
+        }
+        return windowSends.incrementAndGet() > settings.getMaxSendsPerSecond();
+    }
+
+    private ObjectNode ok(JsonNode result) {
+        ObjectNode response = mapper.createObjectNode().put("ok", true);
+        response.set("result", result);
+        return response;
+    }
+
+    private ObjectNode tooManyRequests() {
+        int retryAfter = settings.getRetryAfterSeconds();
+        ObjectNode response = mapper.createObjectNode()
+                .put("ok", false)
+                .put("error_code", TOO_MANY_REQUESTS)
+                .put("description", "Too Many Requests: retry after " + retryAfter);
+        response.putObject("parameters").put("retry_after", retryAfter);
+        return response;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static final class Incoming {
+
+        private final long chatId;
+        private final String text;
+
+        private Incoming(long chatId, String text) {
+            this.chatId = chatId;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package by.smirnov.telegrambot.broadcast;
+
+import by.smirnov.telegrambot.cluster.ShardLeases;
+import by.smirnov.telegrambot.config.AdsConfig;
+import by.smirnov.telegrambot.model.Ads;
+import by.smirnov.telegrambot.model.Segment;
+import by.smirnov.telegrambot.repository.AdsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_ADS_INDEXED;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_ADS_SUBMITTED;
+
+/**
+ * Рассылка рекламы по расписанию. У объявления есть окно показа, сегмент получателей и ограничение частоты:
+ * не чаще раза в show_interval_minutes и не больше max_shows показов. Каждый показ - один проход рассылки
+ * по сегменту, поэтому пользователь получает объявление не больше одного раза за показ.
+ * Индекс расписания - очередь с приоритетом по времени следующего показа: запуск по cron снимает
+ * только наступившие показы, не перебирая остальные объявления и пользователей. Объявления одного сегмента,
+ * наступившие вместе, уходят одним заданием. Таблица объявлений перечитывается раз в bot.ads.refresh-interval-ms.
+ * Задания ставит только лидер кластера, а выполняют все узлы, каждый - по своим шардам чатов.
+ */
+@Component
+@Lazy(false) //@Scheduled регистрируется только у созданного бина
+@Slf4j
+public class AdsScheduler {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final AdsConfig config;
+    private final AdsRepository adsRepository;
+    private final BroadcastService broadcastService;
+    private final ShardLeases leases;
+    private final PriorityQueue<Due> index = new PriorityQueue<>(Comparator.comparingLong(Due::getAt));
+    private long indexedAt = Long.MIN_VALUE;
+
+    public AdsScheduler(AdsConfig config, AdsRepository adsRepository, BroadcastService broadcastService,
+                        ShardLeases leases) {
+        this.config = config;
+        this.adsRepository = adsRepository;
+        this.broadcastService = broadcastService;
+        this.leases = leases;
+    }
+
+    @Scheduled(cron = "${cron.scheduler}") //определяем, что будет автоматическое выполнение метода по расписанию
+    public synchronized void sendAds() {
+        if (!leases.isLeader()) {
+            index.clear(); //новый лидер строит индекс по состоянию показов в БД
+            indexedAt = Long.MIN_VALUE;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            if (indexedAt == Long.MIN_VALUE || now - indexedAt >= config.getRefreshIntervalMs()) {
+                reindex(now);
+            }
+            List<Ads> due = new ArrayList<>();
+            while (!index.isEmpty() && index.peek().getAt() <= now) {
+                due.add(index.poll().getAd());
+            }
+            submit(due, now);
+        } catch (RuntimeException e) { //БД недоступна - индекс перестроится на следующем запуске
+            log.error(ERROR, e.getMessage());
+            indexedAt = Long.MIN_VALUE;
+        }
+    }
+
+    private void reindex(long now) {
+        index.clear();
+        for (Ads ad : adsRepository.findAll()) {
+            schedule(ad, now);
+        }
+        indexedAt = now;
+        log.info(LOG_ADS_INDEXED, index.size());
+    }
+
+    private void submit(List<Ads> due, long now) {
+        Map<Segment, List<Ads>> bySegment = new LinkedHashMap<>();
+        for (Ads ad : due) {
+            if (ad.getEndsAt() == null || now < ad.getEndsAt().getTime()) { //окно могло закрыться между запусками
+                bySegment.computeIfAbsent(Segment.orAll(ad.getSegment()), segment -> new ArrayList<>()).add(ad);
+            }
+        }
+        Timestamp shownAt = new Timestamp(now);
+        for (Map.Entry<Segment, List<Ads>> entry : bySegment.entrySet()) {
+            List<String> texts = new ArrayList<>();
+            for (Ads ad : entry.getValue()) {
+                //показ отмечается до отправки: при сбое лучше недопоказать, чем превысить ограничение частоты
+                adsRepository.markShown(ad.getId(), shownAt);
+                ad.setShows(ad.getShows() + 1);
+                ad.setLastShownAt(shownAt);
+                texts.add(ad.getAd());
+            }
+            long broadcastId = broadcastService.submit(texts, entry.getKey(), null);
+            log.info(LOG_ADS_SUBMITTED, texts.size(), entry.getKey(), broadcastId);
+        }
+        for (List<Ads> ads : bySegment.values()) {
+            ads.forEach(ad -> schedule(ad, now));
+        }
+    }
+
+    private void schedule(Ads ad, long now) {
+        long at = nextShow(ad, now);
+        if (at != NEVER) {
+            index.add(new Due(ad, at));
+        }
+    }
+
+    /**
+     * Время следующего показа или NEVER, если ограничение показов исчерпано или окно закрыто.
+     */
+    private static long nextShow(Ads ad, long now) {
+        if (ad.getMaxShows() != null && ad.getShows() >= ad.getMaxShows()) {
+            return NEVER;
+        }
+        long at = now;
+        if (ad.getLastShownAt() != null) { //без интервала - на следующем запуске расписания, как раньше
+            long interval = ad.getShowIntervalMinutes() != null
+                    ? TimeUnit.MINUTES.toMillis(ad.getShowIntervalMinutes()) : 0;
+            at = ad.getLastShownAt().getTime() + interval;
+        }
+        if (ad.getStartsAt() != null) {
+            at = Math.max(at, ad.getStartsAt().getTime());
+        }
+        return ad.getEndsAt() != null && at >= ad.getEndsAt().getTime() ? NEVER : at;
+    }
+
+    private static final class Due {
+
+        private final Ads ad;
+        private final long at;
+
+        private Due(Ads ad, long at) {
+            this.ad = ad;
+            this.at = at;
+        }
+
+        private Ads getAd() {
+            return ad;
+        }
+
+        private long getAt() {
+            return at;
+        }
+    }
+}
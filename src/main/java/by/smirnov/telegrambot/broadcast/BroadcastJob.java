@@ -0,0 +1,99 @@
+package by.smirnov.telegrambot.broadcast;
+
+import by.smirnov.telegrambot.model.Broadcast;
+import by.smirnov.telegrambot.model.BroadcastShard;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выполняемая часть рассылки - один шард чатов: тексты для набора чатов + счетчики прогресса.
+ * Получатели читаются страницами, каждому чату страницы уходят все тексты задания.
+ * Прогресс хранится компактно: checkpoint - последний chat_id, до которого все страницы завершены.
+ */
+@Getter
+public class BroadcastJob {
+
+    private final long id;
+    private final int shard;
+    private final List<String> texts;
+    private final Iterable<List<Long>> recipientPages;
+    private final Long reportTo; //чат, в который отправляется отчет о завершении (может быть null)
+    private final AtomicInteger sent;
+    private final AtomicInteger failed;
+    private final Queue<Long> blocked = new ConcurrentLinkedQueue<>(); //чаты, заблокировавшие бота, до записи в БД
+    private final Deque<Page> pages = new ArrayDeque<>();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile Long checkpoint;
+    private volatile boolean aborted; //аренда шарда потеряна - дальше отправлять нельзя
+
+    public BroadcastJob(Broadcast broadcast, BroadcastShard progress, Iterable<List<Long>> recipientPages) {
+        this.id = broadcast.getId();
+        this.shard = progress.getShard();
+        this.texts = List.copyOf(broadcast.getTexts());
+        this.recipientPages = recipientPages;
+        this.reportTo = broadcast.getReportTo();
+        this.sent = new AtomicInteger(progress.getSent());
+        this.failed = new AtomicInteger(progress.getFailed());
+        this.checkpoint = progress.getCheckpointChatId();
+    }
+
+    public int processed() {
+        return sent.get() + failed.get();
+    }
+
+    public long elapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    public void abort() {
+        aborted = true;
+    }
+
+    public List<Long> drainBlocked() {
+        List<Long> drained = new ArrayList<>();
+        for (Long chatId = blocked.poll(); chatId != null; chatId = blocked.poll()) {
+            drained.add(chatId);
+        }
+        return drained;
+    }
+
+    synchronized Page track(List<Long> chatIds) {
+        Page page = new Page(chatIds.get(chatIds.size() - 1), chatIds.size() * texts.size());
+        pages.addLast(page);
+        return page;
+    }
+
+    /**
+     * Отмечает отправку одного сообщения страницы. Возвращает true, если checkpoint сдвинулся:
+     * страницы завершаются в любом порядке, а checkpoint двигается только по непрерывному префиксу.
+     */
+    synchronized boolean complete(Page page) {
+        if (--page.remaining > 0) {
+            return false;
+        }
+        boolean moved = false;
+        while (!pages.isEmpty() && pages.peekFirst().remaining == 0) {
+            checkpoint = pages.pollFirst().lastChatId;
+            moved = true;
+        }
+        return moved;
+    }
+
+    static final class Page {
+
+        private final long lastChatId;
+        private int remaining;
+
+        private Page(long lastChatId, int remaining) {
+            this.lastChatId = lastChatId;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package by.smirnov.telegrambot.broadcast;
+
+import by.smirnov.telegrambot.cluster.ShardLeases;
+import by.smirnov.telegrambot.config.BroadcastConfig;
+import by.smirnov.telegrambot.model.Broadcast;
+import by.smirnov.telegrambot.model.BroadcastShard;
+import by.smirnov.telegrambot.model.Segment;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.outbound.TelegramErrors;
+import by.smirnov.telegrambot.repository.BroadcastRepository;
+import by.smirnov.telegrambot.repository.BroadcastShardRepository;
+import by.smirnov.telegrambot.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BROADCAST_DONE;
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_BROADCAST_DONE;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_BROADCAST_PROGRESS;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_BROADCAST_SHARD_DONE;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_BROADCAST_SHARD_STOPPED;
+import static by.smirnov.telegrambot.constants.MetricNames.BROADCAST_IN_FLIGHT;
+import static by.smirnov.telegrambot.constants.MetricNames.BROADCAST_MESSAGES;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_RESULT;
+
+/**
+ * Очередь рассылок. Задания хранятся в БД (tgbot.broadcasts) и делятся на шарды чатов (tgbot.broadcast_shards);
+ * узел выполняет только шарды, которыми владеет по {@link ShardLeases}, по одному, но каждый - пулом
+ * отправителей, с общим лимитом на узел и лимитом на чат. Поток обработки апдейтов не блокируется.
+ * Повторы и паузы по 429 выполняет {@link OutboundQueue}. После рестарта или падения узла незавершенный шард
+ * продолжается с сохраненного checkpoint, повторно могут уйти только сообщения страниц, бывших в работе.
+ * При плановой передаче шарда другому узлу работа останавливается на границе страницы, без повторов.
+ */
+@Service
+@Lazy(false) //после рестарта сразу продолжает прерванные рассылки
+@Slf4j
+public class BroadcastService {
+
+    private final BroadcastConfig config;
+    private final OutboundQueue outboundQueue;
+    private final BroadcastRepository repository;
+    private final BroadcastShardRepository shardRepository;
+    private final ShardLeases leases;
+    private final TransactionTemplate transactionTemplate;
+    private final UserService userService;
+    private final TokenBucket globalLimit;
+    private final ChatThrottle chatThrottle;
+    private final Semaphore inFlight;
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter blockedCounter;
+    private ExecutorService senders;
+    private Thread coordinator;
+
+    public BroadcastService(BroadcastConfig config, OutboundQueue outboundQueue, BroadcastRepository repository,
+                            BroadcastShardRepository shardRepository, ShardLeases leases,
+                            TransactionTemplate transactionTemplate, UserService userService, MeterRegistry registry) {
+        this.config = config;
+        this.outboundQueue = outboundQueue;
+        this.repository = repository;
+        this.shardRepository = shardRepository;
+        this.leases = leases;
+        this.transactionTemplate = transactionTemplate;
+        this.userService = userService;
+        this.globalLimit = new TokenBucket(config.getRatePerSecond(), config.getRatePerSecond());
+        this.chatThrottle = new ChatThrottle(config.getPerChatIntervalMs());
+        this.inFlight = new Semaphore(config.getInFlight());
+        this.sentCounter = registry.counter(BROADCAST_MESSAGES, TAG_RESULT, "sent");
+        this.failedCounter = registry.counter(BROADCAST_MESSAGES, TAG_RESULT, "failed");
+        this.blockedCounter = registry.counter(BROADCAST_MESSAGES, TAG_RESULT, "blocked");
+        Gauge.builder(BROADCAST_IN_FLIGHT, inFlight, permits -> config.getInFlight() - permits.availablePermits())
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newFixedThreadPool(config.getSenders());
+        coordinator = new Thread(this::runJobs, "broadcast-coordinator");
+        coordinator.setDaemon(true);
+        coordinator.start();
+    }
+
+    /**
+     * Новые страницы не начинаются, уже принятые отправки дописываются не дольше shutdown-timeout-ms.
+     * Прерванная отправка не засчитывается и не завершает страницу: после рестарта страница повторится.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownTimeoutMs());
+        coordinator.interrupt();
+        coordinator.join(config.getShutdownTimeoutMs()); //координатор не ставит новые отправки после shutdown пула
+        senders.shutdown();
+        if (!senders.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            senders.shutdownNow();
+        }
+    }
+
+    public long submit(List<String> texts, Long reportTo) {
+        return submit(texts, Segment.ALL, reportTo);
+    }
+
+    /**
+     * Сохраняет задание вместе с его шардами в БД и будит координатор. Возвращает номер рассылки.
+     * Получатели - пользователи сегмента, отбор выполняет БД при чтении страниц.
+     */
+    public long submit(List<String> texts, Segment segment, Long reportTo) {
+        Broadcast broadcast = new Broadcast();
+        broadcast.setTexts(texts);
+        broadcast.setSegment(segment.isAll() ? null : segment);
+        broadcast.setReportTo(reportTo);
+        broadcast.setStatus(Broadcast.Status.QUEUED);
+        broadcast.setShards(leases.shardCount());
+        broadcast.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        Long id = transactionTemplate.execute(status -> {
+            Long saved = repository.save(broadcast).getId();
+            List<BroadcastShard> shards = new ArrayList<>();
+            for (int shard = 0; shard < broadcast.getShards(); shard++) {
+                shards.add(new BroadcastShard(saved, shard));
+            }
+            shardRepository.saveAll(shards);
+            return saved;
+        });
+        wakeUp.release();
+        return id;
+    }
+
+    public long queuedJobs() {
+        return repository.countByStatusNot(Broadcast.Status.DONE);
+    }
+
+    private void runJobs() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Optional<BroadcastShard> next = nextShard(); //первыми идут прерванные рестартом задания
+                if (next.isPresent() && leases.beginWork(next.get().getShard())) {
+                    boolean failed = false;
+                    try {
+                        runShard(next.get());
+                    } catch (RuntimeException e) { //ошибка БД: шард остается незавершенным и повторится позже
+                        log.error(ERROR, e.getMessage(), e);
+                        inFlight.acquire(config.getInFlight()); //уже начатые отправки дописываются до повтора шарда
+                        inFlight.release(config.getInFlight());
+                        failed = true;
+                    } finally {
+                        leases.endWork(next.get().getShard());
+                    }
+                    if (failed) { //координатор не должен умереть, иначе рассылки встанут до рестарта
+                        TimeUnit.MILLISECONDS.sleep(config.getPollIntervalMs());
+                    }
+                } else {
+                    wakeUp.tryAcquire(config.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Optional<BroadcastShard> nextShard() throws InterruptedException {
+        Set<Integer> owned = leases.ownedShards();
+        if (owned.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return shardRepository.findFirstByDoneFalseAndShardInOrderByBroadcastIdAscShardAsc(owned);
+        } catch (RuntimeException e) { //БД недоступна - попробуем позже, координатор не должен умереть
+            log.error(ERROR, e.getMessage());
+            TimeUnit.MILLISECONDS.sleep(config.getPollIntervalMs());
+            return Optional.empty();
+        }
+    }
+
+    private void runShard(BroadcastShard progress) throws InterruptedException {
+        Broadcast broadcast = repository.findById(progress.getBroadcastId()).orElseThrow();
+        long after = progress.getCheckpointChatId() != null ? progress.getCheckpointChatId() : Long.MIN_VALUE;
+        BroadcastJob job = new BroadcastJob(broadcast, progress, userService.findChatIdPages(
+                Segment.orAll(broadcast.getSegment()), broadcast.getShards(), progress.getShard(), after,
+                config.getPageSize()));
+        repository.updateStatus(job.getId(), Broadcast.Status.RUNNING);
+        boolean handedOver = false;
+        for (List<Long> chatIds : job.getRecipientPages()) { //один проход по пользователям на все тексты
+            if (job.isAborted() || !leases.canWork(job.getShard())) { //шард уходит другому узлу - не начинаем страницу
+                handedOver = true;
+                break;
+            }
+            chatThrottle.evictIdle(); //карта держит только чаты последнего интервала, а не всех получателей шарда
+            BroadcastJob.Page page = job.track(chatIds);
+            for (String text : job.getTexts()) { //между сообщениями одному чату проходит целая страница
+                for (Long chatId : chatIds) {
+                    inFlight.acquire(); //не даем очереди пула расти больше, чем in-flight
+                    senders.execute(() -> {
+                        try {
+                            deliver(job, page, chatId, text);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            }
+        }
+        inFlight.acquire(config.getInFlight()); //ждем, пока допишутся все сообщения шарда
+        inFlight.release(config.getInFlight());
+        flushBlocked(job);
+        if (handedOver || job.isAborted()) { //прогресс уже сохранен по страницам, продолжит новый владелец
+            log.info(LOG_BROADCAST_SHARD_STOPPED, job.getId(), job.getShard(), job.getCheckpoint());
+            return;
+        }
+        shardRepository.finish(job.getId(), job.getShard(), job.getSent().get(), job.getFailed().get());
+        log.info(LOG_BROADCAST_SHARD_DONE, job.getId(), job.getShard(), job.getSent(), job.getFailed(),
+                job.elapsedMillis());
+        if (shardRepository.countByBroadcastIdAndDoneFalse(job.getId()) == 0) { //последний шард, на любом узле
+            finish(broadcast);
+        }
+    }
+
+    private void finish(Broadcast broadcast) {
+        int sent = shardRepository.sumSent(broadcast.getId());
+        int failed = shardRepository.sumFailed(broadcast.getId());
+        long finishedAt = System.currentTimeMillis();
+        if (repository.finish(broadcast.getId(), Broadcast.Status.DONE, sent, failed, new Timestamp(finishedAt)) == 0) {
+            return; //уже завершил другой узел
+        }
+        long elapsed = finishedAt - broadcast.getCreatedAt().getTime();
+        log.info(LOG_BROADCAST_DONE, broadcast.getId(), sent, failed, elapsed);
+        if (broadcast.getReportTo() != null) {
+            outboundQueue.sendText(broadcast.getReportTo(),
+                    String.format(BROADCAST_DONE, broadcast.getId(), sent, failed, elapsed / 1000));
+        }
+    }
+
+    private void deliver(BroadcastJob job, BroadcastJob.Page page, long chatId, String text) {
+        if (job.isAborted() || !leases.holds(job.getShard())) { //аренду не продлили - шард может забрать другой узел
+            job.abort();
+            return;
+        }
+        //страница могла быть прочитана до того, как пользователь удалил данные
+        if (!userService.isDeleted(chatId) && !send(job, chatId, text)) {
+            return; //остановка: страница не завершена, checkpoint не сдвигается за неотправленные чаты
+        }
+        if (job.complete(page)) { //страница дописана - сохраняем прогресс одной записью
+            saveProgress(job);
+        }
+        int processed = job.processed();
+        if (processed % config.getProgressEvery() == 0) {
+            log.info(LOG_BROADCAST_PROGRESS, job.getId(), job.getShard(), processed, job.getFailed());
+        }
+    }
+
+    /**
+     * Возвращает false, если отправку прервала остановка узла: такой чат не засчитывается ни в одну сторону.
+     */
+    private boolean send(BroadcastJob job, long chatId, String text) {
+        try {
+            globalLimit.acquire();
+            chatThrottle.acquire(chatId);
+            outboundQueue.sendText(chatId, text).get(); //ждем результата: in-flight ограничивает нагрузку
+            job.getSent().incrementAndGet();
+            sentCounter.increment();
+        } catch (ExecutionException e) { //очередь уже исчерпала повторы или ошибка неисправима (403, 400)
+            job.getFailed().incrementAndGet();
+            if (TelegramErrors.errorCode(e) == TelegramErrors.FORBIDDEN) {
+                job.getBlocked().add(chatId);
+                blockedCounter.increment();
+            } else {
+                failedCounter.increment();
+            }
+        } catch (InterruptedException e) {
+            job.abort();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    private void saveProgress(BroadcastJob job) {
+        try {
+            flushBlocked(job);
+            shardRepository.saveProgress(job.getId(), job.getShard(), job.getCheckpoint(),
+                    job.getSent().get(), job.getFailed().get());
+        } catch (RuntimeException e) { //не страшно: при рестарте повторится чуть больше сообщений
+            log.error(ERROR, e.getMessage());
+        }
+    }
+
+    private void flushBlocked(BroadcastJob job) {
+        List<Long> blocked = job.drainBlocked();
+        if (!blocked.isEmpty()) {
+            userService.markBlocked(blocked);
+        }
+    }
+}
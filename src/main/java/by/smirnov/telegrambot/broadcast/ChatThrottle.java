@@ -0,0 +1,36 @@
+package by.smirnov.telegrambot.broadcast;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты отправки в один чат: не чаще одного сообщения за {@code intervalMillis}.
+ */
+public class ChatThrottle {
+
+    private final long intervalNanos;
+    private final Map<Long, Long> nextAllowed = new ConcurrentHashMap<>();
+
+    public ChatThrottle(long intervalMillis) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    public void acquire(long chatId) throws InterruptedException {
+        long now = System.nanoTime();
+        long permitAt = nextAllowed.merge(chatId, now, (previous, current) ->
+                Math.max(previous + intervalNanos, current));
+        if (permitAt > now) {
+            TimeUnit.NANOSECONDS.sleep(permitAt - now);
+        }
+    }
+
+    /**
+     * Удаляет записи чатов, для которых интервал уже истек. Вызывается на каждой странице рассылки,
+     * поэтому в карте остаются только чаты, получившие сообщение за последний интервал.
+     */
+    public void evictIdle() {
+        long threshold = System.nanoTime() - intervalNanos;
+        nextAllowed.values().removeIf(permitAt -> permitAt < threshold);
+    }
+}
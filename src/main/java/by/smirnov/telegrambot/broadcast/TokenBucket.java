@@ -0,0 +1,33 @@
+package by.smirnov.telegrambot.broadcast;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiter: не больше {@code permitsPerSecond} разрешений в секунду с всплеском до {@code burst}.
+ * Хранит только время, когда освободится следующее разрешение.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long nextFreeNanos;
+
+    public TokenBucket(int permitsPerSecond, int burst) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, permitsPerSecond);
+        this.burstNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long permitAt = Math.max(nextFreeNanos, now - burstNanos);
+            nextFreeNanos = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package by.smirnov.telegrambot.cluster;
+
+import by.smirnov.telegrambot.config.ClusterConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_SHARDS_CHANGED;
+
+/**
+ * Распределение чатов между экземплярами бота. Чаты делятся на шарды по mod(chat_id, shards), каждым шардом
+ * владеет один узел по аренде в tgbot.shard_leases. Узлы регулярно продлевают аренду и перераспределяют шарды
+ * поровну между живыми узлами (tgbot.cluster_nodes); перераспределение выполняется под advisory lock,
+ * поэтому два узла не захватят один шард. Шард умершего узла забирается после истечения его аренды.
+ * Лишний шард, с которым идет работа (рассылка), не отпускается сразу: новая работа по нему не начинается,
+ * а аренда продлевается, пока текущая страница не допишется, - так передача шарда не дублирует отправки.
+ * Локально аренда считается действующей с запасом, чтобы узел, не сумевший ее продлить, перестал
+ * отправлять раньше, чем шард сможет захватить другой. Владелец шарда 0 - лидер: он читает апдейты
+ * и ставит рекламу в очередь.
+ * Без bot.cluster.enabled узел владеет единственным шардом и в БД ничего не пишет.
+ */
+@Component
+@Slf4j
+public class ShardLeases {
+
+    public static final int LEADER_SHARD = 0;
+
+    private static final long LOCK_KEY = 0x7467626f74L; //"tgbot": общий ключ advisory lock для перераспределения
+    private static final String HEARTBEAT = "insert into tgbot.cluster_nodes (node_id, heartbeat_at) "
+            + "values (?, now()) on conflict (node_id) do update set heartbeat_at = excluded.heartbeat_at";
+    private static final String CREATE_LEASES = "insert into tgbot.shard_leases (shard) "
+            + "select generate_series(0, ? - 1) on conflict (shard) do nothing";
+    private static final String LIVE_NODES = "select count(*) from tgbot.cluster_nodes "
+            + "where heartbeat_at > now() - ? * interval '1 millisecond'";
+    private static final String RENEW = "update tgbot.shard_leases set expires_at = now() + ? * interval '1 millisecond' "
+            + "where owner = ? and shard < ? returning shard";
+    private static final String RELEASE = "update tgbot.shard_leases set owner = null, expires_at = null "
+            + "where owner = ? and shard = ?";
+    private static final String CLAIM = "update tgbot.shard_leases set owner = ?, "
+            + "expires_at = now() + ? * interval '1 millisecond' where shard in (select shard from tgbot.shard_leases "
+            + "where shard < ? and (owner is null or expires_at < now()) order by shard limit ?) returning shard";
+    private static final String FORGET_NODES = "delete from tgbot.cluster_nodes "
+            + "where heartbeat_at < now() - ? * interval '1 millisecond'";
+
+    private final ClusterConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Set<Integer> busy = ConcurrentHashMap.newKeySet();
+    private volatile Set<Integer> owned = Set.of(LEADER_SHARD);
+    private volatile Set<Integer> draining = Set.of();
+    private volatile long validUntilNanos = Long.MAX_VALUE;
+    private ScheduledExecutorService renewer;
+
+    public ShardLeases(ClusterConfig config, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeId = config.getNodeId().isEmpty() ? UUID.randomUUID().toString() : config.getNodeId();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        owned = Set.of();
+        validUntilNanos = System.nanoTime();
+        renewer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "shard-leases");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::rebalance, 0, config.getRenewIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Отпускает аренды сразу, чтобы остальные узлы забрали шарды без ожидания истечения.
+     * Вызывается после того, как рассылки и обработка апдейтов этого узла остановлены.
+     */
+    @PreDestroy
+    public void stop() {
+        if (renewer == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        Set<Integer> released;
+        synchronized (this) {
+            released = owned;
+            owned = Set.of();
+        }
+        try {
+            for (Integer shard : released) {
+                if (!busy.contains(shard)) { //недописанную рассылку заберут после истечения аренды
+                    jdbcTemplate.update(RELEASE, nodeId, shard);
+                }
+            }
+        } catch (RuntimeException e) { //аренды истекут сами
+            log.error(ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Число шардов, на которые делятся чаты новых рассылок.
+     */
+    public int shardCount() {
+        return config.isEnabled() ? config.getShards() : 1;
+    }
+
+    /**
+     * Шарды, которыми узел владеет сейчас.
+     */
+    public Set<Integer> ownedShards() {
+        return System.nanoTime() < validUntilNanos ? owned : Set.of();
+    }
+
+    public boolean holds(int shard) {
+        return System.nanoTime() < validUntilNanos && owned.contains(shard);
+    }
+
+    public boolean isLeader() {
+        return holds(LEADER_SHARD);
+    }
+
+    /**
+     * Можно ли начинать новую порцию работы по шарду: шард свой и не передается другому узлу.
+     */
+    public boolean canWork(int shard) {
+        return holds(shard) && !draining.contains(shard);
+    }
+
+    /**
+     * Отмечает начало работы с шардом; пока работа не закончена ({@link #endWork}), шард не отпускается.
+     */
+    public synchronized boolean beginWork(int shard) {
+        if (!canWork(shard)) {
+            return false;
+        }
+        busy.add(shard);
+        return true;
+    }
+
+    public void endWork(int shard) {
+        busy.remove(shard);
+    }
+
+    void rebalance() {
+        long startedAt = System.nanoTime(); //до начала транзакции: локальный срок не позже срока в БД
+        Set<Integer> before = owned;
+        try {
+            Set<Integer> current = transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForObject("select pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+                return rebalanceLocked();
+            });
+            long margin = Math.max(config.getLeaseTtlMs() / 10, config.getRenewIntervalMs() / 2);
+            validUntilNanos = startedAt + TimeUnit.MILLISECONDS.toNanos(config.getLeaseTtlMs() - margin);
+            if (!current.equals(before)) {
+                log.info(LOG_SHARDS_CHANGED, nodeId, current);
+            }
+            owned = current;
+        } catch (RuntimeException e) { //не продлили - шарды перестанут считаться своими по истечении срока
+            log.error(ERROR, e.getMessage());
+        }
+    }
+
+    private Set<Integer> rebalanceLocked() {
+        int shards = config.getShards();
+        long ttl = config.getLeaseTtlMs();
+        jdbcTemplate.update(HEARTBEAT, nodeId);
+        jdbcTemplate.update(CREATE_LEASES, shards);
+        Long nodes = jdbcTemplate.queryForObject(LIVE_NODES, Long.class, ttl);
+        int target = (int) Math.ceil((double) shards / Math.max(1, nodes == null ? 1 : nodes));
+
+        TreeSet<Integer> held = new TreeSet<>(jdbcTemplate.queryForList(RENEW, Integer.class, ttl, nodeId, shards));
+        Set<Integer> released = new TreeSet<>();
+        Set<Integer> stillBusy = new TreeSet<>();
+        synchronized (this) { //узлов стало больше - лишние шарды отдаем, начиная со старших
+            for (Integer shard : held.descendingSet()) {
+                if (released.size() + stillBusy.size() >= held.size() - target) {
+                    break;
+                }
+                (busy.contains(shard) ? stillBusy : released).add(shard);
+            }
+            held.removeAll(released);
+            owned = Collections.unmodifiableSet(new TreeSet<>(held)); //до записи в БД: новая работа уже не начнется
+            draining = Collections.unmodifiableSet(stillBusy);
+        }
+        for (Integer shard : released) {
+            jdbcTemplate.update(RELEASE, nodeId, shard);
+        }
+        if (held.size() < target) {
+            List<Integer> claimed = jdbcTemplate.queryForList(CLAIM, Integer.class,
+                    nodeId, ttl, shards, target - held.size());
+            held.addAll(claimed);
+        }
+        jdbcTemplate.update(FORGET_NODES, ttl * 10);
+        return Collections.unmodifiableSet(held);
+    }
+}
@@ -0,0 +1,17 @@
+package by.smirnov.telegrambot.command;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+@Getter
+@RequiredArgsConstructor
+public class CommandContext {
+
+    private final Message message;
+    private final String arguments; //текст после команды без начальных пробелов, может быть пустым
+
+    public long getChatId() {
+        return message.getChatId();
+    }
+}
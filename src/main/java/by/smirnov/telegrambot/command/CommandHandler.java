@@ -0,0 +1,30 @@
+package by.smirnov.telegrambot.command;
+
+import java.util.List;
+
+/**
+ * Обработчик команды бота. Все бины-обработчики собираются в {@link CommandRouter} при старте.
+ */
+public interface CommandHandler {
+
+    /**
+     * Команда вместе с "/", например "/start".
+     */
+    String command();
+
+    /**
+     * Тексты кнопок reply-клавиатуры, которые вызывают ту же команду.
+     */
+    default List<String> aliases() {
+        return List.of();
+    }
+
+    /**
+     * Команда доступна только владельцу бота (bot.owner); для остальных она не существует.
+     */
+    default boolean ownerOnly() {
+        return false;
+    }
+
+    void handle(CommandContext context);
+}
@@ -0,0 +1,99 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.model.BotState;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.repository.BotStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
+import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
+import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_DELETE_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_HELP;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_MY_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_REGISTER;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_SETTINGS;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_START;
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR_COMMAND_LIST;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_COMMANDS_PUBLISHED;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_COMMANDS_UNCHANGED;
+
+/**
+ * Публикует меню команд (SetMyCommands) в фоне после старта приложения, не задерживая создание бинов
+ * и начало получения апдейтов. Хэш опубликованного меню хранится в tgbot.bot_state, поэтому при рестарте
+ * с тем же набором команд запрос в Telegram не отправляется.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CommandMenuPublisher {
+
+    private static final List<BotCommand> COMMANDS = List.of( //меню команд бота
+            new BotCommand(COMMAND_START, "get a welcome message"),
+            new BotCommand(COMMAND_MY_DATA, "get your data stored"),
+            new BotCommand(COMMAND_REGISTER, "registration"),
+            new BotCommand(COMMAND_DELETE_DATA, "delete my data"),
+            new BotCommand(COMMAND_HELP, "info how to use this bot"),
+            new BotCommand(COMMAND_SETTINGS, "set your preferences"));
+
+    private final OutboundQueue outboundQueue;
+    private final BotStateRepository stateRepository;
+
+    @EventListener({ApplicationReadyEvent.class})
+    public void publishInBackground() {
+        Thread publisher = new Thread(this::publish, "command-menu-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    private void publish() {
+        String hash = hash(COMMANDS);
+        try {
+            Optional<BotState> published = stateRepository.findById(BotState.COMMANDS_HASH);
+            if (published.isPresent() && hash.equals(published.get().getValue())) {
+                log.info(LOG_COMMANDS_UNCHANGED, hash);
+                return;
+            }
+        } catch (RuntimeException e) { //БД недоступна - просто публикуем меню заново
+            log.error(ERROR, e.getMessage());
+        }
+        outboundQueue.submit(new SetMyCommands(COMMANDS, new BotCommandScopeDefault(), null)) //с повторами и паузой на 429
+                .whenComplete((ok, e) -> {
+                    if (e != null) {
+                        log.error(ERROR_COMMAND_LIST, e.getMessage());
+                        return;
+                    }
+                    try {
+                        stateRepository.save(new BotState(BotState.COMMANDS_HASH, hash));
+                        log.info(LOG_COMMANDS_PUBLISHED, COMMANDS.size(), hash);
+                    } catch (RuntimeException saveError) { //в следующий раз меню опубликуется повторно
+                        log.error(ERROR, saveError.getMessage());
+                    }
+                });
+    }
+
+    private static String hash(List<BotCommand> commands) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (BotCommand command : commands) {
+                digest.update((command.getCommand() + '\t' + command.getDescription() + '\n')
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) { //SHA-256 обязан поддерживаться любой JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.config.BotConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_SLOW_COMMAND;
+import static by.smirnov.telegrambot.constants.MetricNames.COMMAND;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_COMMAND;
+
+/**
+ * Маршрутизация текстовых сообщений к обработчикам команд. Таблица команд строится один раз при старте,
+ * поиск - по хэш-таблице. Понимает аргументы ("/start payload") и суффикс с именем бота ("/help@bot").
+ */
+@Component
+@Slf4j
+public class CommandRouter {
+
+    private static final char COMMAND_PREFIX = '/';
+    private static final char BOT_NAME_SEPARATOR = '@';
+    private static final long SLOW_COMMAND_NANOS = 500_000_000L;
+
+    private final BotConfig botConfig;
+    private final Map<String, CommandHandler> commands = new HashMap<>();
+    private final Map<String, CommandHandler> aliases = new HashMap<>();
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    public CommandRouter(BotConfig botConfig, List<CommandHandler> handlers, MeterRegistry registry) {
+        this.botConfig = botConfig;
+        for (CommandHandler handler : handlers) {
+            register(commands, handler.command(), handler);
+            handler.aliases().forEach(alias -> register(aliases, alias, handler));
+            timers.put(handler.command(), Timer.builder(COMMAND).tag(TAG_COMMAND, handler.command())
+                    .publishPercentileHistogram().register(registry));
+        }
+    }
+
+    /**
+     * Выполняет команду из сообщения. Возвращает false, если сообщение не является доступной командой.
+     */
+    public boolean route(Message message) {
+        String text = message.getText();
+        String arguments = "";
+        CommandHandler handler;
+        if (!text.isEmpty() && text.charAt(0) == COMMAND_PREFIX) {
+            int end = indexOfWhitespace(text);
+            String command = text.substring(0, end);
+            int at = command.indexOf(BOT_NAME_SEPARATOR);
+            if (at >= 0) {
+                if (!command.substring(at + 1).equalsIgnoreCase(botConfig.getBotName())) {
+                    return true; //команда адресована другому боту в группе - молча пропускаем
+                }
+                command = command.substring(0, at);
+            }
+            handler = commands.get(command.toLowerCase(Locale.ROOT));
+            arguments = text.substring(end).strip();
+        } else {
+            handler = aliases.get(text);
+        }
+        if (handler == null || handler.ownerOnly() && !botConfig.getOwnerId().equals(message.getChatId())) {
+            return false;
+        }
+        execute(handler, new CommandContext(message, arguments));
+        return true;
+    }
+
+    private void execute(CommandHandler handler, CommandContext context) {
+        long start = System.nanoTime();
+        try {
+            handler.handle(context);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timers.get(handler.command()).record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed > SLOW_COMMAND_NANOS) {
+                log.warn(LOG_SLOW_COMMAND, handler.command(), elapsed / 1_000_000);
+            }
+        }
+    }
+
+    private static void register(Map<String, CommandHandler> table, String key, CommandHandler handler) {
+        CommandHandler previous = table.put(key, handler);
+        if (previous != null) {
+            throw new IllegalStateException("Duplicate command " + key + ": "
+                    + previous.getClass().getSimpleName() + ", " + handler.getClass().getSimpleName());
+        }
+    }
+
+    private static int indexOfWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+}
@@ -0,0 +1,32 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.conversation.DeleteDataFlow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_DELETE_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_DELETE_DATA;
+
+@Component
+@RequiredArgsConstructor
+public class DeleteDataCommand implements CommandHandler {
+
+    private final DeleteDataFlow deleteDataFlow;
+
+    @Override
+    public String command() {
+        return COMMAND_DELETE_DATA;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of(BUTTON_DELETE_DATA);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        deleteDataFlow.start(context.getChatId()); //удаляет только нажатие "Yes, delete" через CallbackRouter
+    }
+}
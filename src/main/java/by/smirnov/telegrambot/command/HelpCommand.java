@@ -0,0 +1,25 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_HELP;
+import static by.smirnov.telegrambot.constants.BotConstants.HELP_TEXT;
+
+@Component
+@RequiredArgsConstructor
+public class HelpCommand implements CommandHandler {
+
+    private final OutboundQueue outboundQueue;
+
+    @Override
+    public String command() {
+        return COMMAND_HELP;
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        outboundQueue.sendText(context.getChatId(), HELP_TEXT);
+    }
+}
@@ -0,0 +1,37 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.DataExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_MY_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_MY_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.EXPORT_BUSY_TEXT;
+
+@Component
+@RequiredArgsConstructor
+public class MyDataCommand implements CommandHandler {
+
+    private final DataExporter dataExporter;
+    private final OutboundQueue outboundQueue;
+
+    @Override
+    public String command() {
+        return COMMAND_MY_DATA;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of(BUTTON_MY_DATA);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        if (!dataExporter.export(context.getChatId())) { //выгрузка идет в фоне, воркер апдейтов не ждет
+            outboundQueue.sendText(context.getChatId(), EXPORT_BUSY_TEXT);
+        }
+    }
+}
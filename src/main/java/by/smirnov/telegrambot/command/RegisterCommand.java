@@ -0,0 +1,32 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.conversation.RegistrationFlow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_REGISTER;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_REGISTER;
+
+@Component
+@RequiredArgsConstructor
+public class RegisterCommand implements CommandHandler {
+
+    private final RegistrationFlow registrationFlow;
+
+    @Override
+    public String command() {
+        return COMMAND_REGISTER;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return List.of(BUTTON_REGISTER);
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        registrationFlow.start(context.getChatId()); //дальше диалог идет кнопками через CallbackRouter
+    }
+}
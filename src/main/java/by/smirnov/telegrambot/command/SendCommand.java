@@ -0,0 +1,45 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.broadcast.BroadcastService;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import com.vdurmont.emoji.EmojiParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BROADCAST_QUEUED;
+import static by.smirnov.telegrambot.constants.BotConstants.BROADCAST_USAGE;
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_SEND;
+
+/**
+ * Владелец отправляет сообщение боту, а бот рассылает его всем пользователям.
+ */
+@Component
+@RequiredArgsConstructor
+public class SendCommand implements CommandHandler {
+
+    private final BroadcastService broadcastService;
+    private final OutboundQueue outboundQueue;
+
+    @Override
+    public String command() {
+        return COMMAND_SEND;
+    }
+
+    @Override
+    public boolean ownerOnly() {
+        return true;
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        if (context.getArguments().isEmpty()) {
+            outboundQueue.sendText(context.getChatId(), BROADCAST_USAGE);
+            return;
+        }
+        String textToSend = EmojiParser.parseToUnicode(context.getArguments()); //эмодзи разбираются один раз на рассылку
+        long broadcastId = broadcastService.submit(List.of(textToSend), context.getChatId()); //отчет придет владельцу
+        outboundQueue.sendText(context.getChatId(), String.format(BROADCAST_QUEUED, broadcastId));
+    }
+}
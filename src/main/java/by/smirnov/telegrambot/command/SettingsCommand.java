@@ -0,0 +1,24 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.conversation.SettingsFlow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_SETTINGS;
+
+@Component
+@RequiredArgsConstructor
+public class SettingsCommand implements CommandHandler {
+
+    private final SettingsFlow settingsFlow;
+
+    @Override
+    public String command() {
+        return COMMAND_SETTINGS;
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        settingsFlow.start(context.getChatId());
+    }
+}
@@ -0,0 +1,44 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.UserService;
+import by.smirnov.telegrambot.template.Keyboards;
+import by.smirnov.telegrambot.template.Templates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import static by.smirnov.telegrambot.constants.BotConstants.COMMAND_START;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_REPLIED;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StartCommand implements CommandHandler {
+
+    private final UserService userService;
+    private final OutboundQueue outboundQueue;
+    private final Templates templates;
+    private final Keyboards keyboards;
+
+    @Override
+    public String command() {
+        return COMMAND_START;
+    }
+
+    @Override
+    public void handle(CommandContext context) {
+        Message message = context.getMessage();
+        userService.registerUser(message);
+        String answer = templates.start().fill(message.getChat().getFirstName());
+
+        log.debug(LOG_REPLIED, message.getChat().getUserName());
+        SendMessage reply = new SendMessage();
+        reply.setChatId(context.getChatId());
+        reply.setText(answer);
+        reply.setReplyMarkup(keyboards.mainMenu()); //передаем готовую клавиатуру в сообщение
+        outboundQueue.submit(reply);
+    }
+}
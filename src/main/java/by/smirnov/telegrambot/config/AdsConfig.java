@@ -0,0 +1,13 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class AdsConfig {
+
+    @Value("${bot.ads.refresh-interval-ms:300000}") //как часто перечитывать таблицу объявлений в индекс расписания
+    long refreshIntervalMs;
+}
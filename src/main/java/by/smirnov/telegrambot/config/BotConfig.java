@@ -2,14 +2,16 @@ package by.smirnov.telegrambot.config;
 
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 
 @Configuration
 @EnableScheduling
 @Data
-@PropertySource("classpath:application.properties")
+@PropertySource(value = "classpath:application.properties", ignoreResourceNotFound = true)
 public class BotConfig {
 
     @Value("${bot.name}")
@@ -20,4 +22,33 @@ public class BotConfig {
 
     @Value("${bot.owner}")
     Long ownerId;
+
+    @Value("${bot.api.base-url:https://api.telegram.org/bot}") //для нагрузочных тестов - адрес локальной заглушки
+    String apiBaseUrl;
+
+    @Value("${bot.webhook.enabled:false}") //true - апдейты приходят на встроенный HTTP-сервер вместо long polling
+    boolean webhookEnabled;
+
+    @Value("${bot.webhook.url:}") //публичный адрес сервера; в Telegram регистрируется {url}/callback{path}
+    String webhookUrl;
+
+    @Value("${bot.webhook.port:8443}")
+    int webhookPort;
+
+    @Value("${bot.webhook.path:/webhook}")
+    String webhookPath;
+
+    @Value("${bot.webhook.secret:}")
+    String webhookSecret;
+
+    @Value("${bot.webhook.threads:4}")
+    int webhookThreads;
+
+    @Bean
+    public DefaultBotOptions botOptions(OutboundConfig outboundConfig) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setMaxThreads(outboundConfig.getThreads()); //по умолчанию executeAsync выполняется в одном потоке
+        options.setBaseUrl(apiBaseUrl);
+        return options;
+    }
 }
@@ -1,31 +1,103 @@
 package by.smirnov.telegrambot.config;
 
+import by.smirnov.telegrambot.cluster.ShardLeases;
+import by.smirnov.telegrambot.dispatch.UpdateDeduplicator;
+import by.smirnov.telegrambot.dispatch.UpdateDispatcher;
 import by.smirnov.telegrambot.service.TelegramBot;
+import by.smirnov.telegrambot.webhook.WebhookServer;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.io.IOException;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+
 @Component
+@Lazy(false) //точка входа: тянет за собой бота и все, что нужно для получения апдейтов
 @Slf4j
 @RequiredArgsConstructor
 public class BotInitializer {
 
+    private final BotConfig botConfig;
     private final TelegramBot bot;
+    private final WebhookServer webhookServer;
+    private final UpdateDispatcher dispatcher;
+    private final UpdateDeduplicator deduplicator;
+    private final ClusterConfig clusterConfig;
+    private final ShardLeases leases;
+    private BotSession session;
+    private boolean closed;
 
     @EventListener({ContextRefreshedEvent.class})
-    public void init() throws TelegramApiException {
-        TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+    public synchronized void init() throws TelegramApiException, IOException {
+        if (!clusterConfig.isEnabled() || botConfig.isWebhookEnabled()) {
+            deduplicator.resume(); //в кластере отметку подхватывает лидер перед запуском long polling
+        }
+        if (botConfig.isWebhookEnabled()) { //апдейты будут приходить на webhook, long polling не запускаем
+            webhookServer.start();
+            return;
+        }
+        if (!clusterConfig.isEnabled()) {
+            startPolling();
+        }
+    }
+
+    /**
+     * В кластере getUpdates может читать только один узел (иначе Telegram отвечает 409), поэтому
+     * long polling запущен только у лидера и переходит к другому узлу вместе с арендой шарда 0.
+     */
+    @Scheduled(fixedDelayString = "${bot.cluster.renew-interval-ms:10000}")
+    public synchronized void followLeadership() {
+        if (!clusterConfig.isEnabled() || botConfig.isWebhookEnabled() || closed) {
+            return;
+        }
+        boolean polling = session != null && session.isRunning();
+        if (leases.isLeader() && !polling) {
+            deduplicator.resume(); //прежний лидер мог уйти дальше, чем было при нашем запуске
+            startPolling();
+        } else if (!leases.isLeader() && polling) {
+            session.stop();
+            deduplicator.flush();
+        }
+    }
+
+    private void startPolling() {
+        if (session != null) {
+            session.start();
+            return;
+        }
         try {
-            telegramBotsApi.registerBot(bot);
+            TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+            session = telegramBotsApi.registerBot(bot);
         } catch (TelegramApiException e) {
-            log.error("Error occured: " + e.getMessage());
+            log.error(ERROR, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Останавливается до уничтожения бинов: сначала перестаем получать апдейты, затем диспетчер
+     * дорабатывает очередь, пока БД и буфер регистраций еще доступны, и сохраняется последний update_id.
+     */
+    @EventListener({ContextClosedEvent.class})
+    public synchronized void stop() throws InterruptedException {
+        closed = true;
+        if (session != null && session.isRunning()) {
+            session.stop();
         }
+        webhookServer.stop();
+        dispatcher.stop();
+        deduplicator.flush();
     }
 }
@@ -0,0 +1,34 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class BroadcastConfig {
+
+    @Value("${bot.broadcast.rate-per-second:25}") //Telegram позволяет ~30 сообщений/сек, оставляем запас интерактиву
+    int ratePerSecond;
+
+    @Value("${bot.broadcast.per-chat-interval-ms:1000}")
+    long perChatIntervalMs;
+
+    @Value("${bot.broadcast.senders:8}")
+    int senders;
+
+    @Value("${bot.broadcast.in-flight:256}")
+    int inFlight;
+
+    @Value("${bot.broadcast.page-size:1000}") //страница получателей - единица сохранения прогресса
+    int pageSize;
+
+    @Value("${bot.broadcast.poll-interval-ms:10000}") //как часто проверять таблицу заданий без явного сигнала
+    long pollIntervalMs;
+
+    @Value("${bot.broadcast.progress-every:1000}")
+    int progressEvery;
+
+    @Value("${bot.broadcast.shutdown-timeout-ms:10000}") //сколько ждать уже принятые отправки при остановке
+    long shutdownTimeoutMs;
+}
@@ -0,0 +1,19 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class CacheConfig {
+
+    @Value("${bot.cache.known-users:1000000}") //сколько chat_id зарегистрированных пользователей держать в памяти
+    long knownUsers;
+
+    @Value("${bot.cache.users:10000}") //сколько сущностей User держать для findById
+    long users;
+
+    @Value("${bot.cache.warmup-page-size:10000}")
+    int warmupPageSize;
+}
@@ -0,0 +1,25 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class ClusterConfig {
+
+    @Value("${bot.cluster.enabled:false}") //false - один экземпляр владеет всеми чатами, таблицы аренды не используются
+    boolean enabled;
+
+    @Value("${bot.cluster.node-id:}") //пусто - случайный id при каждом запуске
+    String nodeId;
+
+    @Value("${bot.cluster.shards:16}") //на сколько частей делятся чаты (по mod(chat_id, shards)), больше числа узлов
+    int shards;
+
+    @Value("${bot.cluster.lease-ttl-ms:30000}") //через сколько аренду узла, переставшего отвечать, заберут другие
+    long leaseTtlMs;
+
+    @Value("${bot.cluster.renew-interval-ms:10000}")
+    long renewIntervalMs;
+}
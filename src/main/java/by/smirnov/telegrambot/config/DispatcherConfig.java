@@ -0,0 +1,25 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class DispatcherConfig {
+
+    @Value("${bot.dispatcher.workers:16}")
+    int workers;
+
+    @Value("${bot.dispatcher.queue-depth:1000}") //глубина очереди каждого воркера, дальше - backpressure
+    int queueDepth;
+
+    @Value("${bot.dispatcher.shutdown-timeout-ms:30000}")
+    long shutdownTimeoutMs;
+
+    @Value("${bot.dispatcher.dedup-window:65536}") //сколько последних update_id помнится для отсева повторов
+    int dedupWindow;
+
+    @Value("${bot.dispatcher.dedup-flush-interval-ms:1000}") //как часто сохранять в БД последний update_id
+    long dedupFlushIntervalMs;
+}
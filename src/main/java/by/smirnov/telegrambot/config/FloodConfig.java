@@ -0,0 +1,22 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class FloodConfig {
+
+    @Value("${bot.flood.messages-per-minute:30}") //средняя частота апдейтов от одного чата
+    int messagesPerMinute;
+
+    @Value("${bot.flood.burst:10}") //сколько апдейтов подряд чат может прислать без ограничения
+    int burst;
+
+    @Value("${bot.flood.evict-interval-ms:60000}")
+    long evictIntervalMs;
+
+    @Value("${bot.flood.shed-depth:2000}") //при такой очереди отправки необязательные ответы не отправляются
+    int shedDepth;
+}
@@ -0,0 +1,13 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class LoggingConfig {
+
+    @Value("${bot.log.message-sample-rate:100}") //на INFO пишется каждое N-е сообщение без текста, 0 - ни одного
+    int messageSampleRate;
+}
@@ -0,0 +1,16 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class MetricsConfig {
+
+    @Value("${bot.metrics.port:0}") //0 - эндпоинт для Prometheus не поднимается
+    int port;
+
+    @Value("${bot.metrics.path:/metrics}")
+    String path;
+}
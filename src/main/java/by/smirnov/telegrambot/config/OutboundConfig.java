@@ -0,0 +1,22 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class OutboundConfig {
+
+    @Value("${bot.outbound.threads:16}") //потоки, которыми бот выполняет executeAsync
+    int threads;
+
+    @Value("${bot.outbound.max-attempts:5}")
+    int maxAttempts;
+
+    @Value("${bot.outbound.backoff-ms:200}")
+    long backoffMs;
+
+    @Value("${bot.outbound.coalesce-ms:300}") //окно, в котором правки одного сообщения склеиваются в одну
+    long coalesceMs;
+}
@@ -1,8 +1,10 @@
 package by.smirnov.telegrambot.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
@@ -13,6 +15,12 @@ import java.util.Properties;
 @Configuration
 public class PersistenceProvidersConfiguration {
 
+    @Value("${bot.jpa.show-sql:false}") //вывод SQL в консоль синхронный, включать только для отладки
+    private boolean showSql;
+
+    @Value("${bot.jpa.bootstrap-async:false}") //Hibernate стартует в фоне, репозитории ждут его при первом обращении
+    private boolean bootstrapAsync;
+
     @Autowired
     @Bean(name = "entityManagerFactory")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
@@ -24,6 +32,9 @@ public class PersistenceProvidersConfiguration {
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(getAdditionalProperties());
+        if (bootstrapAsync) {
+            em.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+        }
 
         return em;
     }
@@ -31,8 +42,11 @@ public class PersistenceProvidersConfiguration {
     private Properties getAdditionalProperties() {
         Properties properties = new Properties();
 
-        properties.put("hibernate.show_sql", "true");
+        properties.put("hibernate.show_sql", String.valueOf(showSql));
         properties.put("hibernate.default_schema", "tgbot");
+        properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
         properties.put("current_session_context_class", "org.springframework.orm.hibernate5.SpringSessionContext");
         return properties;
     }
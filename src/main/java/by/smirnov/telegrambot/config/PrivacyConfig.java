@@ -0,0 +1,25 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class PrivacyConfig {
+
+    @Value("${bot.privacy.purge-batch-size:500}") //сколько пользователей удаляется одним delete
+    int purgeBatchSize;
+
+    @Value("${bot.privacy.purge-interval-ms:1000}")
+    long purgeIntervalMs;
+
+    @Value("${bot.privacy.purged-ttl-ms:600000}") //сколько помнить удаленных: рассылки могли прочитать их раньше
+    long purgedTtlMs;
+
+    @Value("${bot.privacy.export-threads:2}")
+    int exportThreads;
+
+    @Value("${bot.privacy.export-queue:1000}") //сверх этого запросы выгрузки отклоняются с просьбой повторить позже
+    int exportQueue;
+}
@@ -0,0 +1,16 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class RegistrationConfig {
+
+    @Value("${bot.registration.batch-size:500}") //сколько новых пользователей пишется одним insert
+    int batchSize;
+
+    @Value("${bot.registration.flush-interval-ms:1000}")
+    long flushIntervalMs;
+}
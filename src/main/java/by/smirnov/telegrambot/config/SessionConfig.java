@@ -0,0 +1,22 @@
+package by.smirnov.telegrambot.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Data
+public class SessionConfig {
+
+    @Value("${bot.session.ttl-ms:900000}") //сколько живет незавершенный диалог с кнопками
+    long ttlMs;
+
+    @Value("${bot.session.stripes:64}") //число независимо блокируемых частей хранилища, степень двойки
+    int stripes;
+
+    @Value("${bot.session.initial-capacity:1024}") //начальная емкость одной части, дальше растет вдвое
+    int initialCapacity;
+
+    @Value("${bot.session.sweep-interval-ms:60000}")
+    long sweepIntervalMs;
+}
@@ -1,5 +1,7 @@
 package by.smirnov.telegrambot.constants;
 
+import java.util.List;
+
 public interface BotConstants {
     String COMMAND_SEND = "/send";
     String COMMAND_START = "/start";
@@ -18,11 +20,66 @@ public interface BotConstants {
     String START_TEXT = """
             Привет, %s, я бот! Меня создал Антон, потому что ему лень самому общаться в телеграме.
             А теперь к делу: приходи к нему на ДР! Что скажешь? %s""";
+    String MY_DATA_TEXT = """
+            Данные о вас:
+            chat id: %s
+            имя: %s
+            фамилия: %s
+            username: %s
+            зарегистрирован: %s""";
+    String NO_DATA_TEXT = "Данных о вас нет";
+    String DATA_DELETED_TEXT = "Ваши данные удалены";
+    String DELETE_CONFIRM_TEXT = "Удалить все ваши данные? Отменить это будет нельзя";
+    String DELETE_CANCELLED_TEXT = "Удаление отменено";
+    String EXPORT_BUSY_TEXT = "Сейчас слишком много запросов на выгрузку, попробуйте позже";
+    String EXPORT_FILE_NAME = "mydata-%d.json";
+    String SETTINGS_TEXT = "Настройки\nЯзык новостей: %s";
+    String SETTINGS_CHANGED_TEXT = "Настройки\nЯзык новостей: %s (не сохранено)";
+    String SETTINGS_SAVED_TEXT = "Настройки сохранены. Язык новостей: %s";
+    String SETTINGS_CANCELLED_TEXT = "Настройки не изменены";
+    String SETTINGS_NOT_REGISTERED_TEXT = "Сначала зарегистрируйтесь: /register";
+    String REGISTER_CONFIRM_TEXT = "Do you really want to register?";
+    String REGISTER_LANGUAGE_TEXT = "На каком языке присылать новости?";
+    String REGISTERED_TEXT = "Готово, вы зарегистрированы. Язык новостей: %s";
+    String REGISTER_CANCELLED_TEXT = "Регистрация отменена";
+    String CALLBACK_EXPIRED_TEXT = "Кнопка устарела, повторите команду";
+    String NO_LANGUAGE = "не выбран";
+    List<String> LANGUAGES = List.of("ru", "be", "uk", "en"); //языки для выбора в регистрации и /settings
+    String BROADCAST_USAGE = "Использование: /send текст рассылки";
+    String BUTTON_REGISTER = "register";
+    String BUTTON_MY_DATA = "check my data";
+    String BUTTON_DELETE_DATA = "delete my data";
     String SMILE_BLUSH = ":blush:";
-    String YES_BUTTON = "YES_BUTTON";
-    String NO_BUTTON = "NO_BUTTON";
+    String BUTTON_YES = "Yes";
+    String BUTTON_NO = "No";
+    String BUTTON_SAVE = "Save";
+    String BUTTON_CANCEL = "Cancel";
+    String BUTTON_CONFIRM_DELETE = "Yes, delete";
     String ERROR = "Error occurred: {}";
     String ERROR_COMMAND_LIST = "Error setting bot's command list: {}";
-    String LOG_SAVED = "user saved: {}";
+    String LOG_SAVED = "users saved: {}";
+    String LOG_PURGED = "users purged: {}";
     String LOG_REPLIED = "Replied to user {}";
+    String LOG_MESSAGE = "Message received: user={} text={}";
+    String LOG_MESSAGE_SAMPLED = "Message received: length={} sampled=1/{}";
+    String BROADCAST_QUEUED = "Рассылка #%d поставлена в очередь";
+    String BROADCAST_DONE = "Рассылка #%d завершена: доставлено %d, ошибок %d, за %d сек.";
+    String LOG_BROADCAST_PROGRESS = "Broadcast #{} shard {}: processed {}, failed {}";
+    String LOG_BROADCAST_DONE = "Broadcast #{} finished: sent {}, failed {}, took {} ms";
+    String LOG_RETRY_AFTER = "Flood limit reached, pausing sends for {} s";
+    String LOG_UPDATE_DROPPED = "Dispatcher is stopped, update {} dropped";
+    String LOG_UPDATE_DUPLICATE = "Update {} was already processed, skipped";
+    String LOG_UPDATE_ID_RESET = "Update id {} is far below the last processed {}, update_id sequence restarted";
+    String LOG_WEBHOOK_STARTED = "Webhook receiver listening on port {} at {}";
+    String LOG_METRICS_STARTED = "Metrics endpoint listening on port {} at {}";
+    String LOG_SLOW_COMMAND = "Command {} took {} ms";
+    String LOG_CACHE_WARMED = "User cache warmed up with {} chat ids";
+    String LOG_DISPATCHER_STOPPED = "Update dispatcher stopped, {} updates left unprocessed";
+    String LOG_SHARDS_CHANGED = "Node {} now owns shards {}";
+    String LOG_BROADCAST_SHARD_DONE = "Broadcast #{} shard {}: sent {}, failed {}, took {} ms";
+    String LOG_BROADCAST_SHARD_STOPPED = "Broadcast #{} shard {} handed over at chat {}";
+    String LOG_COMMANDS_PUBLISHED = "Command menu published: {} commands, hash {}";
+    String LOG_COMMANDS_UNCHANGED = "Command menu unchanged (hash {}), not published";
+    String LOG_ADS_INDEXED = "Ads schedule index rebuilt: {} ads pending";
+    String LOG_ADS_SUBMITTED = "{} ads submitted to segment {} as broadcast #{}";
 }
@@ -0,0 +1,27 @@
+package by.smirnov.telegrambot.constants;
+
+public interface MetricNames {
+    String UPDATE_LATENCY = "bot.update.latency";
+    String UPDATE_DUPLICATES = "bot.update.duplicates";
+    String UPDATE_THROTTLED = "bot.update.throttled";
+    String REPLY_SHED = "bot.reply.shed";
+    String COMMAND = "bot.command";
+    String TELEGRAM_REQUESTS = "bot.telegram.requests";
+    String DB = "bot.db";
+    String BROADCAST_MESSAGES = "bot.broadcast.messages";
+    String DISPATCHER_QUEUE = "bot.dispatcher.queue";
+    String OUTBOUND_DEPTH = "bot.outbound.depth";
+    String BROADCAST_IN_FLIGHT = "bot.broadcast.in.flight";
+    String REGISTRATION_BUFFER = "bot.registration.buffer";
+    String PURGE_PENDING = "bot.purge.pending";
+    String FLOOD_CHATS = "bot.flood.chats";
+    String SESSIONS = "bot.sessions";
+    String TAG_TYPE = "type";
+    String TAG_COMMAND = "command";
+    String TAG_METHOD = "method";
+    String TAG_STATUS = "status";
+    String TAG_OPERATION = "operation";
+    String TAG_RESULT = "result";
+    String MDC_UPDATE_ID = "updateId";
+    String MDC_CHAT_ID = "chatId";
+}
@@ -0,0 +1,64 @@
+package by.smirnov.telegrambot.conversation;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Компактный payload инлайн-кнопки: символ сценария, цифра шага, символ действия и необязательный аргумент,
+ * например "r0y" или "s0l2". Telegram ограничивает callback_data 64 байтами.
+ */
+@Getter
+public final class CallbackData {
+
+    public static final int MAX_BYTES = 64;
+
+    private final char flow;
+    private final int step;
+    private final char action;
+    private final String argument; //может быть пустым
+
+    private CallbackData(char flow, int step, char action, String argument) {
+        this.flow = flow;
+        this.step = step;
+        this.action = action;
+        this.argument = argument;
+    }
+
+    public static CallbackData of(char flow, int step, char action) {
+        return of(flow, step, action, "");
+    }
+
+    public static CallbackData of(char flow, int step, char action, String argument) {
+        if (step < 0 || step > 9) {
+            throw new IllegalArgumentException("step must be a single digit: " + step);
+        }
+        return new CallbackData(flow, step, action, argument);
+    }
+
+    public String encode() {
+        String data = "" + flow + (char) ('0' + step) + action + argument;
+        if (data.getBytes(StandardCharsets.UTF_8).length > MAX_BYTES) {
+            throw new IllegalArgumentException("callback data longer than " + MAX_BYTES + " bytes: " + data);
+        }
+        return data;
+    }
+
+    /**
+     * Разбирает payload; для чужого или устаревшего формата (кнопки старых версий бота) возвращает null.
+     */
+    public static CallbackData decode(String data) {
+        if (data == null || data.length() < 3 || !Character.isDigit(data.charAt(1))) {
+            return null;
+        }
+        return new CallbackData(data.charAt(0), data.charAt(1) - '0', data.charAt(2), data.substring(3));
+    }
+
+    public int argumentAsInt() { //-1, если аргумент не число
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package by.smirnov.telegrambot.conversation;
+
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+/**
+ * Сценарий диалога на инлайн-кнопках. Все бины-сценарии собираются в {@link CallbackRouter} при старте;
+ * сценарию передаются только нажатия, совпадающие с текущим шагом сессии чата.
+ */
+public interface CallbackHandler {
+
+    /**
+     * Символ сценария в {@link CallbackData} и {@link Session}.
+     */
+    char flow();
+
+    /**
+     * Обрабатывает нажатие. Возвращает текст всплывающего уведомления или null.
+     */
+    String handle(CallbackQuery query, CallbackData data, long session);
+
+    /**
+     * Правка сообщения с кнопками; без клавиатуры Telegram убирает кнопки из сообщения.
+     */
+    static EditMessageText edit(Message message, String text, InlineKeyboardMarkup keyboard) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(String.valueOf(message.getChatId()));
+        edit.setMessageId(message.getMessageId());
+        edit.setText(text);
+        edit.setReplyMarkup(keyboard);
+        return edit;
+    }
+}
@@ -0,0 +1,53 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static by.smirnov.telegrambot.constants.BotConstants.CALLBACK_EXPIRED_TEXT;
+
+/**
+ * Маршрутизация нажатий инлайн-кнопок. Payload разбирается без обращения к БД, состояние диалога берется
+ * из {@link SessionStore}; нажатие кнопки старого сообщения или истекшей сессии не доходит до сценария.
+ * На каждое нажатие отправляется answerCallbackQuery через {@link OutboundQueue}, ответа сервера никто не ждет.
+ */
+@Component
+public class CallbackRouter {
+
+    private final SessionStore sessions;
+    private final OutboundQueue outboundQueue;
+    private final Map<Character, CallbackHandler> handlers = new HashMap<>();
+
+    public CallbackRouter(SessionStore sessions, OutboundQueue outboundQueue, List<CallbackHandler> handlers) {
+        this.sessions = sessions;
+        this.outboundQueue = outboundQueue;
+        for (CallbackHandler handler : handlers) {
+            if (this.handlers.put(handler.flow(), handler) != null) {
+                throw new IllegalStateException("Duplicate callback flow: " + handler.flow());
+            }
+        }
+    }
+
+    public void route(CallbackQuery query) {
+        String notice = CALLBACK_EXPIRED_TEXT;
+        CallbackData data = CallbackData.decode(query.getData());
+        Message message = query.getMessage();
+        if (data != null && message != null) {
+            CallbackHandler handler = handlers.get(data.getFlow());
+            long session = sessions.get(message.getChatId());
+            if (handler != null && Session.flow(session) == data.getFlow() && Session.step(session) == data.getStep()) {
+                notice = handler.handle(query, data, session);
+            }
+        }
+        AnswerCallbackQuery answer = new AnswerCallbackQuery(); //без ответа кнопка в клиенте крутит индикатор
+        answer.setCallbackQueryId(query.getId());
+        answer.setText(notice);
+        outboundQueue.submit(answer);
+    }
+}
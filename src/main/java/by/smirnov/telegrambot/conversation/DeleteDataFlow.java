@@ -0,0 +1,65 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.UserService;
+import by.smirnov.telegrambot.template.Keyboards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import static by.smirnov.telegrambot.constants.BotConstants.CALLBACK_EXPIRED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DATA_DELETED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DELETE_CANCELLED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DELETE_CONFIRM_TEXT;
+
+/**
+ * Удаление данных с подтверждением: команда и кнопка меню только спрашивают, удаляется по "Yes, delete".
+ * Кнопку старого сообщения после истечения сессии {@link CallbackRouter} сюда не пропустит.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeleteDataFlow implements CallbackHandler {
+
+    public static final char FLOW = 'd';
+    public static final int CONFIRM = 0;
+    public static final char YES = 'y';
+    public static final char NO = 'n';
+
+    private final SessionStore sessions;
+    private final OutboundQueue outboundQueue;
+    private final Keyboards keyboards;
+    private final UserService userService;
+
+    @Override
+    public char flow() {
+        return FLOW;
+    }
+
+    public void start(long chatId) {
+        sessions.put(chatId, Session.of(FLOW, CONFIRM, 0));
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(DELETE_CONFIRM_TEXT);
+        message.setReplyMarkup(keyboards.deleteConfirm());
+        outboundQueue.submit(message);
+    }
+
+    @Override
+    public String handle(CallbackQuery query, CallbackData data, long session) {
+        Message message = query.getMessage();
+        long chatId = message.getChatId();
+        if (data.getAction() == YES) {
+            sessions.remove(chatId);
+            userService.deleteUser(chatId); //само удаление из БД выполняется пачкой в фоне
+            outboundQueue.submitEdit(CallbackHandler.edit(message, DATA_DELETED_TEXT, null));
+        } else if (data.getAction() == NO) {
+            sessions.remove(chatId);
+            outboundQueue.submitEdit(CallbackHandler.edit(message, DELETE_CANCELLED_TEXT, null));
+        } else {
+            return CALLBACK_EXPIRED_TEXT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.UserService;
+import by.smirnov.telegrambot.template.Keyboards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import static by.smirnov.telegrambot.constants.BotConstants.CALLBACK_EXPIRED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.LANGUAGES;
+import static by.smirnov.telegrambot.constants.BotConstants.REGISTERED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.REGISTER_CANCELLED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.REGISTER_CONFIRM_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.REGISTER_LANGUAGE_TEXT;
+
+/**
+ * Регистрация в два шага: подтверждение, затем выбор языка новостей. Промежуточные шаги живут только
+ * в {@link SessionStore}, в БД пишется один раз - после выбора языка.
+ */
+@Component
+@RequiredArgsConstructor
+public class RegistrationFlow implements CallbackHandler {
+
+    public static final char FLOW = 'r';
+    public static final int CONFIRM = 0;
+    public static final int LANGUAGE = 1;
+    public static final char YES = 'y';
+    public static final char NO = 'n';
+    public static final char CHOOSE = 'l'; //аргумент - индекс в LANGUAGES
+
+    private final SessionStore sessions;
+    private final OutboundQueue outboundQueue;
+    private final Keyboards keyboards;
+    private final UserService userService;
+
+    @Override
+    public char flow() {
+        return FLOW;
+    }
+
+    public void start(long chatId) {
+        sessions.put(chatId, Session.of(FLOW, CONFIRM, 0));
+        SendMessage message = new SendMessage(); //создаем объект отправки сообщений
+        message.setChatId(String.valueOf(chatId)); //определяем ID чата
+        message.setText(REGISTER_CONFIRM_TEXT); //и сообщение к отправке
+        message.setReplyMarkup(keyboards.registerConfirm()); //устанавливаем сообщению готовую клавиатуру
+        outboundQueue.submit(message);
+    }
+
+    @Override
+    public String handle(CallbackQuery query, CallbackData data, long session) {
+        Message message = query.getMessage();
+        long chatId = message.getChatId();
+        if (data.getStep() == CONFIRM) {
+            if (data.getAction() == YES) {
+                sessions.put(chatId, Session.of(FLOW, LANGUAGE, 0));
+                outboundQueue.submitEdit(CallbackHandler.edit(message, REGISTER_LANGUAGE_TEXT,
+                        keyboards.registerLanguages()));
+            } else {
+                sessions.remove(chatId);
+                outboundQueue.submitEdit(CallbackHandler.edit(message, REGISTER_CANCELLED_TEXT, null));
+            }
+            return null;
+        }
+        int language = data.getAction() == CHOOSE ? data.argumentAsInt() : -1;
+        if (language < 0 || language >= LANGUAGES.size()) {
+            return CALLBACK_EXPIRED_TEXT;
+        }
+        sessions.remove(chatId);
+        userService.saveLanguage(chatId, query.getFrom(), LANGUAGES.get(language)); //единственная запись за сценарий
+        outboundQueue.submitEdit(CallbackHandler.edit(message, String.format(REGISTERED_TEXT, LANGUAGES.get(language)),
+                null));
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package by.smirnov.telegrambot.conversation;
+
+/**
+ * Состояние диалога, упакованное в один long, чтобы {@link SessionStore} хранил его без объектов:
+ * символ сценария (16 бит), шаг (16 бит) и данные шага (32 бита). {@link #NONE} - сессии нет.
+ */
+public final class Session {
+
+    public static final long NONE = 0;
+
+    private Session() {
+    }
+
+    public static long of(char flow, int step, int data) {
+        return ((long) flow << 48) | ((long) (step & 0xFFFF) << 32) | (data & 0xFFFFFFFFL);
+    }
+
+    public static char flow(long session) {
+        return (char) (session >>> 48);
+    }
+
+    public static int step(long session) {
+        return (int) (session >>> 32) & 0xFFFF;
+    }
+
+    public static int data(long session) {
+        return (int) session;
+    }
+}
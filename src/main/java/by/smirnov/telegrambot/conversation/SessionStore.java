@@ -0,0 +1,219 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.config.SessionConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.MetricNames.SESSIONS;
+
+/**
+ * Сессии диалогов по chatId в памяти: хэш-таблицы с открытой адресацией на массивах long, без объектов
+ * на запись, поэтому миллион активных диалогов занимает около 24 МБ и не нагружает GC.
+ * Таблица разбита на части со своей блокировкой. Сессия живет bot.session.ttl-ms с последнего изменения:
+ * просроченная не возвращается, а место освобождается при обращении или фоновой очисткой.
+ */
+@Component
+@Slf4j
+public class SessionStore {
+
+    private final SessionConfig config;
+    private final Stripe[] stripes;
+    private ScheduledExecutorService sweeper;
+
+    public SessionStore(SessionConfig config, MeterRegistry registry) {
+        if (Integer.bitCount(config.getStripes()) != 1 || Integer.bitCount(config.getInitialCapacity()) != 1) {
+            throw new IllegalArgumentException("bot.session.stripes and initial-capacity must be powers of two");
+        }
+        this.config = config;
+        this.stripes = new Stripe[config.getStripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(config.getInitialCapacity());
+        }
+        Gauge.builder(SESSIONS, this, SessionStore::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::evictExpired,
+                config.getSweepIntervalMs(), config.getSweepIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Текущая сессия чата или {@link Session#NONE}.
+     */
+    public long get(long chatId) {
+        return stripe(chatId).get(chatId, System.currentTimeMillis());
+    }
+
+    public void put(long chatId, long session) {
+        stripe(chatId).put(chatId, session, System.currentTimeMillis() + config.getTtlMs());
+    }
+
+    public void remove(long chatId) {
+        stripe(chatId).remove(chatId);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Stripe stripe : stripes) {
+            stripe.evictExpired(now);
+        }
+    }
+
+    private Stripe stripe(long chatId) {
+        return stripes[Long.hashCode(chatId) & (stripes.length - 1)]; //внутри части ячейку задают другие биты
+    }
+
+    private static long mix(long chatId) { //chat_id идут подряд и кратно друг другу - перемешиваем биты
+        return chatId * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Одна часть таблицы: линейное пробирование, удаление сдвигом назад (без "надгробий").
+     * Пустая ячейка - deadline == 0.
+     */
+    private static final class Stripe {
+
+        private long[] keys;
+        private long[] values;
+        private long[] deadlines;
+        private int mask;
+        private int size;
+
+        private Stripe(int capacity) {
+            allocate(capacity);
+        }
+
+        synchronized long get(long key, long now) {
+            int i = find(key);
+            if (i < 0) {
+                return Session.NONE;
+            }
+            if (deadlines[i] <= now) {
+                delete(i);
+                return Session.NONE;
+            }
+            return values[i];
+        }
+
+        synchronized void put(long key, long value, long deadline) {
+            if ((size + 1) * 4 > keys.length * 3) { //заполнение не выше 75%
+                grow();
+            }
+            int i = home(key);
+            while (deadlines[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (deadlines[i] == 0) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+            deadlines[i] = deadline;
+        }
+
+        synchronized void remove(long key) {
+            int i = find(key);
+            if (i >= 0) {
+                delete(i);
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void evictExpired(long now) {
+            for (int i = 0; i < deadlines.length; ) {
+                if (deadlines[i] != 0 && deadlines[i] <= now) {
+                    delete(i); //на место i мог сдвинуться следующий элемент - проверяем ячейку еще раз
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private int find(long key) {
+            for (int i = home(key); deadlines[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void delete(int slot) {
+            size--;
+            int gap = slot;
+            for (int j = (slot + 1) & mask; deadlines[j] != 0; j = (j + 1) & mask) {
+                int home = home(keys[j]);
+                //элемент можно сдвинуть в дыру, если его домашняя ячейка не лежит циклически в (gap, j]
+                boolean movable = j > gap ? (home <= gap || home > j) : (home <= gap && home > j);
+                if (movable) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    deadlines[gap] = deadlines[j];
+                    gap = j;
+                }
+            }
+            deadlines[gap] = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            long[] oldDeadlines = deadlines;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldDeadlines[i] != 0) {
+                    int j = home(oldKeys[i]);
+                    while (deadlines[j] != 0) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                    deadlines[j] = oldDeadlines[i];
+                    size++;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+            deadlines = new long[capacity];
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        private int home(long key) {
+            return (int) (mix(key) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.model.User;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.UserService;
+import by.smirnov.telegrambot.template.Keyboards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import static by.smirnov.telegrambot.constants.BotConstants.CALLBACK_EXPIRED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.LANGUAGES;
+import static by.smirnov.telegrambot.constants.BotConstants.NO_LANGUAGE;
+import static by.smirnov.telegrambot.constants.BotConstants.SETTINGS_CANCELLED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.SETTINGS_CHANGED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.SETTINGS_NOT_REGISTERED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.SETTINGS_SAVED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.SETTINGS_TEXT;
+
+/**
+ * /settings: выбор языка новостей кнопками с сохранением. Выбор до сохранения хранится в сессии
+ * (исходный и текущий индекс языка), нажатия правят одно сообщение; в БД пишется только по "Save"
+ * и только если язык изменился.
+ */
+@Component
+@RequiredArgsConstructor
+public class SettingsFlow implements CallbackHandler {
+
+    public static final char FLOW = 's';
+    public static final int EDIT = 0;
+    public static final char CHOOSE = 'l'; //аргумент - индекс в LANGUAGES
+    public static final char SAVE = 's';
+    public static final char CANCEL = 'c';
+
+    private final SessionStore sessions;
+    private final OutboundQueue outboundQueue;
+    private final Keyboards keyboards;
+    private final UserService userService;
+
+    @Override
+    public char flow() {
+        return FLOW;
+    }
+
+    public void start(long chatId) {
+        User user = userService.findById(chatId);
+        if (user == null) {
+            outboundQueue.sendText(chatId, SETTINGS_NOT_REGISTERED_TEXT);
+            return;
+        }
+        int language = LANGUAGES.indexOf(user.getLanguageCode());
+        sessions.put(chatId, Session.of(FLOW, EDIT, selection(language, language)));
+        SendMessage message = new SendMessage();
+        message.setChatId(String.valueOf(chatId));
+        message.setText(String.format(SETTINGS_TEXT, name(language)));
+        message.setReplyMarkup(keyboards.settings());
+        outboundQueue.submit(message);
+    }
+
+    @Override
+    public String handle(CallbackQuery query, CallbackData data, long session) {
+        Message message = query.getMessage();
+        long chatId = message.getChatId();
+        int saved = saved(Session.data(session));
+        int chosen = chosen(Session.data(session));
+        if (data.getAction() == CHOOSE) {
+            int language = data.argumentAsInt();
+            if (language < 0 || language >= LANGUAGES.size()) {
+                return CALLBACK_EXPIRED_TEXT;
+            }
+            if (language != chosen) { //повторное нажатие того же языка ничего не меняет
+                sessions.put(chatId, Session.of(FLOW, EDIT, selection(saved, language)));
+                outboundQueue.submitEdit(CallbackHandler.edit(message,
+                        String.format(SETTINGS_CHANGED_TEXT, name(language)), keyboards.settings()));
+            }
+        } else if (data.getAction() == SAVE) {
+            sessions.remove(chatId);
+            if (chosen != saved) {
+                userService.saveLanguage(chatId, query.getFrom(), LANGUAGES.get(chosen));
+            }
+            outboundQueue.submitEdit(CallbackHandler.edit(message, String.format(SETTINGS_SAVED_TEXT, name(chosen)),
+                    null));
+        } else if (data.getAction() == CANCEL) {
+            sessions.remove(chatId);
+            outboundQueue.submitEdit(CallbackHandler.edit(message, SETTINGS_CANCELLED_TEXT, null));
+        } else {
+            return CALLBACK_EXPIRED_TEXT;
+        }
+        return null;
+    }
+
+    private static int selection(int saved, int chosen) { //оба индекса +1, чтобы "не выбран" (-1) влез в 16 бит
+        return (saved + 1) << 16 | (chosen + 1);
+    }
+
+    private static int saved(int selection) {
+        return (selection >>> 16) - 1;
+    }
+
+    private static int chosen(int selection) {
+        return (selection & 0xFFFF) - 1;
+    }
+
+    private static String name(int language) {
+        return language >= 0 ? LANGUAGES.get(language) : NO_LANGUAGE;
+    }
+}
@@ -0,0 +1,111 @@
+package by.smirnov.telegrambot.dispatch;
+
+import by.smirnov.telegrambot.config.BotConfig;
+import by.smirnov.telegrambot.config.FloodConfig;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static by.smirnov.telegrambot.constants.MetricNames.FLOOD_CHATS;
+import static by.smirnov.telegrambot.constants.MetricNames.REPLY_SHED;
+import static by.smirnov.telegrambot.constants.MetricNames.UPDATE_THROTTLED;
+
+/**
+ * Защита от флуда на входе: у каждого чата свой token bucket (GCRA - хранится только теоретическое время
+ * следующего разрешения), обновляемый через CAS без блокировок. Апдейты сверх лимита отбрасываются
+ * до диспетчера. Записи чатов, у которых ведро уже полное, периодически удаляются. Владелец не ограничивается.
+ * Кроме того, когда очередь отправки переполнена, необязательные ответы (эхо на произвольный текст)
+ * не отправляются, чтобы команды остальных пользователей не ждали за ними.
+ */
+@Component
+public class FloodGuard {
+
+    private final FloodConfig config;
+    private final BotConfig botConfig;
+    private final OutboundQueue outboundQueue;
+    private final Counter throttled;
+    private final Counter shed;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService evictor;
+
+    public FloodGuard(FloodConfig config, BotConfig botConfig, OutboundQueue outboundQueue, MeterRegistry registry) {
+        this.config = config;
+        this.botConfig = botConfig;
+        this.outboundQueue = outboundQueue;
+        this.throttled = registry.counter(UPDATE_THROTTLED);
+        this.shed = registry.counter(REPLY_SHED);
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, config.getMessagesPerMinute());
+        this.burstNanos = intervalNanos * (Math.max(1, config.getBurst()) - 1);
+        Gauge.builder(FLOOD_CHATS, buckets, Map::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "flood-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle,
+                config.getEvictIntervalMs(), config.getEvictIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        evictor.shutdown();
+    }
+
+    /**
+     * Возвращает false, если чат превысил лимит и апдейт нужно отбросить.
+     */
+    public boolean tryAcquire(long chatId) {
+        if (botConfig.getOwnerId().equals(chatId)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.computeIfAbsent(chatId, key -> new AtomicLong(now - burstNanos));
+        while (true) {
+            long tat = bucket.get();
+            long permitAt = Math.max(tat, now - burstNanos);
+            if (permitAt > now) {
+                throttled.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(tat, permitAt + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Возвращает false, если необязательный ответ нужно пропустить из-за перегрузки очереди отправки.
+     */
+    public boolean allowOptionalReply() {
+        if (outboundQueue.depth() > config.getShedDepth()) {
+            shed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет чаты, ведро которых снова полное: для них новая запись ничем не отличается от старой.
+     */
+    void evictIdle() {
+        long threshold = System.nanoTime() - burstNanos;
+        buckets.values().removeIf(bucket -> bucket.get() <= threshold);
+    }
+}
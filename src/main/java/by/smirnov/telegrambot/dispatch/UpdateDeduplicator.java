@@ -0,0 +1,173 @@
+package by.smirnov.telegrambot.dispatch;
+
+import by.smirnov.telegrambot.config.DispatcherConfig;
+import by.smirnov.telegrambot.model.BotState;
+import by.smirnov.telegrambot.repository.BotStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_UPDATE_DUPLICATE;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_UPDATE_ID_RESET;
+import static by.smirnov.telegrambot.constants.MetricNames.UPDATE_DUPLICATES;
+
+/**
+ * Отсев повторно доставленных апдейтов. Последние dedup-window значений update_id хранятся битами
+ * в кольцевом буфере; все, что старше окна, считается уже обработанным. Наибольший принятый update_id
+ * сохраняется в tgbot.bot_state по таймеру и при остановке, поэтому после рестарта апдейты,
+ * которые Telegram отдаст повторно, отсекаются без запросов к БД.
+ * После недели без апдейтов Telegram может начать update_id заново со случайного значения: update_id,
+ * который ниже окна больше чем на его размер, считается началом новой последовательности, а не повтором.
+ */
+@Component
+@Slf4j
+public class UpdateDeduplicator {
+
+    private static final long NONE = -1;
+
+    private final DispatcherConfig config;
+    private final BotStateRepository repository;
+    private final Counter duplicates;
+    private final long[] seen;
+    private final int window;
+    private final Object flushLock = new Object();
+    private long base = NONE; //наименьший update_id, который еще помещается в окно
+    private long highWater = NONE;
+    private long savedHighWater = NONE;
+    private ScheduledExecutorService flusher;
+
+    public UpdateDeduplicator(DispatcherConfig config, BotStateRepository repository, MeterRegistry registry) {
+        this.config = config;
+        this.repository = repository;
+        this.duplicates = registry.counter(UPDATE_DUPLICATES);
+        this.window = Math.max(64, Integer.highestOneBit(config.getDedupWindow() - 1) << 1); //степень двойки
+        this.seen = new long[window / 64];
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "dedup-flusher"));
+        flusher.scheduleWithFixedDelay(this::flush,
+                config.getDedupFlushIntervalMs(), config.getDedupFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Подхватывает отметку из БД, если она новее своей: перед первым получением апдейтов (не при создании бина,
+     * чтобы не ждать Hibernate во время старта) и когда чтение апдейтов переходит к этому узлу от другого экземпляра.
+     */
+    public void resume() {
+        Optional<BotState> mark;
+        try {
+            mark = repository.findById(BotState.UPDATE_HIGH_WATER);
+        } catch (DataAccessException e) { //без отметки отсеются только повторы внутри окна
+            log.error(ERROR, e.getMessage());
+            return;
+        }
+        mark.ifPresent(state -> {
+            long stored = Long.parseLong(state.getValue());
+            synchronized (this) {
+                if (stored > highWater) {
+                    Arrays.fill(seen, 0);
+                    highWater = stored;
+                    savedHighWater = stored;
+                    base = stored + 1; //все до сохраненной отметки уже обработано
+                }
+            }
+        });
+    }
+
+    /**
+     * Отмечает update_id как принятый. Возвращает false, если апдейт уже встречался (или старше окна).
+     */
+    public synchronized boolean firstSeen(long updateId) {
+        if (base == NONE) {
+            base = Math.max(0, updateId - window + 1);
+        }
+        if (updateId < base - window) {
+            restart(updateId);
+        } else if (updateId < base) {
+            return duplicate(updateId);
+        }
+        if (updateId >= base + window) {
+            slide(updateId - window + 1);
+        }
+        int bit = (int) (updateId & (window - 1));
+        long mask = 1L << bit;
+        if ((seen[bit >>> 6] & mask) != 0) {
+            return duplicate(updateId);
+        }
+        seen[bit >>> 6] |= mask;
+        highWater = Math.max(highWater, updateId);
+        return true;
+    }
+
+    public void flush() {
+        synchronized (flushLock) { //таймер и остановка не должны записать отметки в обратном порядке
+            long current;
+            synchronized (this) {
+                current = highWater;
+            }
+            if (current == savedHighWater) {
+                return;
+            }
+            try {
+                repository.save(new BotState(BotState.UPDATE_HIGH_WATER, Long.toString(current)));
+                savedHighWater = current;
+            } catch (DataAccessException e) { //не страшно: после рестарта повторов отсеется чуть меньше
+                log.error(ERROR, e.getMessage());
+            }
+        }
+    }
+
+    private void restart(long updateId) {
+        log.warn(LOG_UPDATE_ID_RESET, updateId, highWater);
+        Arrays.fill(seen, 0);
+        base = Math.max(0, updateId - window + 1);
+        highWater = NONE; //старая отметка больше не действует, новая сохранится сразу
+        if (flusher != null) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) { //остановка: отметку сохранит stop()
+                log.debug(ERROR, e.getMessage());
+            }
+        }
+    }
+
+    private void slide(long newBase) {
+        if (newBase - base >= window) {
+            Arrays.fill(seen, 0);
+        } else {
+            for (long id = base; id < newBase; id++) {
+                int bit = (int) (id & (window - 1));
+                seen[bit >>> 6] &= ~(1L << bit);
+            }
+        }
+        base = newBase;
+    }
+
+    private boolean duplicate(long updateId) {
+        duplicates.increment();
+        log.debug(LOG_UPDATE_DUPLICATE, updateId);
+        return false;
+    }
+}
@@ -0,0 +1,145 @@
+package by.smirnov.telegrambot.dispatch;
+
+import by.smirnov.telegrambot.config.DispatcherConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_DISPATCHER_STOPPED;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_UPDATE_DROPPED;
+import static by.smirnov.telegrambot.constants.MetricNames.DISPATCHER_QUEUE;
+import static by.smirnov.telegrambot.constants.MetricNames.MDC_CHAT_ID;
+import static by.smirnov.telegrambot.constants.MetricNames.MDC_UPDATE_ID;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_TYPE;
+import static by.smirnov.telegrambot.constants.MetricNames.UPDATE_LATENCY;
+
+/**
+ * Параллельная обработка апдейтов. Апдейты распределяются по воркерам по chatId,
+ * поэтому разные чаты обрабатываются параллельно, а сообщения одного чата - строго по порядку.
+ * Когда очередь воркера заполнена, {@link #dispatch} блокирует вызывающий поток (backpressure).
+ * Время от получения апдейта до конца его обработки пишется в метрику bot.update.latency,
+ * а на время обработки в MDC кладутся updateId и chatId.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UpdateDispatcher {
+
+    private static final Runnable STOP = () -> { };
+
+    private final DispatcherConfig config;
+    private final MeterRegistry registry;
+    private BlockingQueue<Runnable>[] queues;
+    private Thread[] workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        queues = new BlockingQueue[config.getWorkers()];
+        workers = new Thread[config.getWorkers()];
+        for (int i = 0; i < workers.length; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(config.getQueueDepth());
+            queues[i] = queue;
+            workers[i] = new Thread(() -> work(queue), "update-worker-" + i);
+            workers[i].start();
+        }
+        running = true;
+        Gauge.builder(DISPATCHER_QUEUE, this, UpdateDispatcher::pending).register(registry);
+    }
+
+    /**
+     * Дожидается обработки уже принятых апдейтов и останавливает воркеры.
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (BlockingQueue<Runnable> queue : queues) {
+            queue.put(STOP);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownTimeoutMs());
+        for (Thread worker : workers) {
+            TimeUnit.NANOSECONDS.timedJoin(worker, Math.max(1, deadline - System.nanoTime()));
+        }
+        log.info(LOG_DISPATCHER_STOPPED, pending());
+    }
+
+    public void dispatch(Update update, Consumer<Update> handler) {
+        if (!running) {
+            log.warn(LOG_UPDATE_DROPPED, update.getUpdateId());
+            return;
+        }
+        long receivedAt = System.nanoTime();
+        long chatId = chatId(update);
+        int shard = Math.floorMod(Long.hashCode(chatId), queues.length);
+        try {
+            queues[shard].put(() -> handle(update, chatId, handler, receivedAt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn(LOG_UPDATE_DROPPED, update.getUpdateId());
+        }
+    }
+
+    public int pending() {
+        int pending = 0;
+        for (BlockingQueue<Runnable> queue : queues) {
+            pending += queue.size();
+        }
+        return pending;
+    }
+
+    private void handle(Update update, long chatId, Consumer<Update> handler, long receivedAt) {
+        MDC.put(MDC_UPDATE_ID, String.valueOf(update.getUpdateId()));
+        MDC.put(MDC_CHAT_ID, String.valueOf(chatId));
+        try {
+            handler.accept(update);
+        } finally {
+            latency(update).record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+            MDC.clear();
+        }
+    }
+
+    private Timer latency(Update update) {
+        String type = update.hasMessage() ? "message" : update.hasCallbackQuery() ? "callback" : "other";
+        return Timer.builder(UPDATE_LATENCY).tag(TAG_TYPE, type).publishPercentileHistogram().register(registry);
+    }
+
+    private void work(BlockingQueue<Runnable> queue) {
+        try {
+            for (Runnable task = queue.take(); task != STOP; task = queue.take()) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) { //ошибка одного апдейта не должна останавливать воркер
+                    log.error(ERROR, e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long chatId(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        } else if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return update.getUpdateId(); //апдейты без чата раскидываем равномерно
+    }
+}
@@ -0,0 +1,66 @@
+package by.smirnov.telegrambot.metrics;
+
+import by.smirnov.telegrambot.config.MetricsConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_METRICS_STARTED;
+
+/**
+ * Отдает метрики в формате Prometheus на встроенном HTTP-сервере JDK: веб-стартера в проекте нет,
+ * поэтому эндпоинт actuator по HTTP недоступен.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+@RequiredArgsConstructor
+public class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int OK = 200;
+
+    private final MetricsConfig config;
+    private final PrometheusMeterRegistry registry;
+    private HttpServer server;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (config.getPort() == 0) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), 0);
+        server.createContext(config.getPath(), this::scrape);
+        server.start();
+        log.info(LOG_METRICS_STARTED, config.getPort(), config.getPath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
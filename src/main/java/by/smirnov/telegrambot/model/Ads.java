@@ -5,11 +5,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import java.sql.Timestamp;
 
 @Entity
 @Getter
@@ -24,4 +27,24 @@ public class Ads {
     private Long id;
 
     private String ad;
+
+    @Column(name = "starts_at") //окно показа; пустые границы - без ограничения
+    private Timestamp startsAt;
+
+    @Column(name = "ends_at")
+    private Timestamp endsAt;
+
+    @Embedded
+    private Segment segment;
+
+    @Column(name = "show_interval_minutes") //не чаще раза в N минут; пусто - на каждом запуске расписания
+    private Integer showIntervalMinutes;
+
+    @Column(name = "max_shows") //не больше N показов одному пользователю; пусто - без ограничения
+    private Integer maxShows;
+
+    private int shows; //сколько раз объявление уже разослано
+
+    @Column(name = "last_shown_at")
+    private Timestamp lastShownAt;
 }
@@ -0,0 +1,30 @@
+package by.smirnov.telegrambot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Служебное состояние бота, которое должно пережить рестарт: ключ - значение.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "bot_state")
+public class BotState {
+
+    public static final String UPDATE_HIGH_WATER = "update.high-water";
+    public static final String COMMANDS_HASH = "commands.hash";
+
+    @Id
+    private String name;
+
+    private String value;
+}
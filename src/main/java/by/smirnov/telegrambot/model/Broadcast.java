@@ -0,0 +1,64 @@
+package by.smirnov.telegrambot.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "broadcasts")
+public class Broadcast {
+
+    public enum Status { QUEUED, RUNNING, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "broadcast_texts", joinColumns = @JoinColumn(name = "broadcast_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "body")
+    private List<String> texts = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(name = "report_to")
+    private Long reportTo;
+
+    @Embedded
+    private Segment segment; //кому отправлять; null - всем
+
+    private int shards; //на сколько шардов делятся получатели, фиксируется при создании
+
+    private int sent;
+
+    private int failed;
+
+    @Column(name = "created_at")
+    private Timestamp createdAt;
+
+    @Column(name = "finished_at")
+    private Timestamp finishedAt;
+}
@@ -0,0 +1,58 @@
+package by.smirnov.telegrambot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Прогресс рассылки по одному шарду чатов (mod(chat_id, shards) = shard). Шарды выполняются независимо,
+ * в том числе разными экземплярами бота; рассылка завершена, когда завершены все ее шарды.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@IdClass(BroadcastShard.Key.class)
+@Table(name = "broadcast_shards")
+public class BroadcastShard {
+
+    @Id
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+
+    @Id
+    private Integer shard;
+
+    @Column(name = "checkpoint_chat_id") //все чаты шарда с chat_id не больше этого уже обработаны
+    private Long checkpointChatId;
+
+    private int sent;
+
+    private int failed;
+
+    private boolean done;
+
+    public BroadcastShard(Long broadcastId, Integer shard) {
+        this.broadcastId = broadcastId;
+        this.shard = shard;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        private Long broadcastId;
+        private Integer shard;
+    }
+}
@@ -0,0 +1,42 @@
+package by.smirnov.telegrambot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.sql.Timestamp;
+
+/**
+ * Сегмент получателей рекламы и рассылок: язык клиента Telegram и период регистрации.
+ * Пустое поле - без ограничения; сегмент без ограничений - все пользователи.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class Segment {
+
+    public static final Segment ALL = new Segment();
+
+    @Column(name = "language_code")
+    private String languageCode;
+    @Column(name = "registered_from") //включительно
+    private Timestamp registeredFrom;
+    @Column(name = "registered_to") //не включительно
+    private Timestamp registeredTo;
+
+    public boolean isAll() {
+        return languageCode == null && registeredFrom == null && registeredTo == null;
+    }
+
+    //Hibernate возвращает null вместо встроенного объекта, все поля которого пусты
+    public static Segment orAll(Segment segment) {
+        return segment != null ? segment : ALL;
+    }
+}
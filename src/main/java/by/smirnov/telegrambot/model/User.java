@@ -35,4 +35,8 @@ public class User {
     private String userName;
     @Column(name="registered_at")
     private Timestamp registeredAt;
+    @Column(name="language_code") //язык клиента Telegram, для сегментов рекламы
+    private String languageCode;
+    @Column(name="blocked_at") //когда пользователь заблокировал бота; такие чаты не попадают в рассылки
+    private Timestamp blockedAt;
 }
@@ -0,0 +1,225 @@
+package by.smirnov.telegrambot.outbound;
+
+import by.smirnov.telegrambot.config.OutboundConfig;
+import by.smirnov.telegrambot.service.TelegramBot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_RETRY_AFTER;
+import static by.smirnov.telegrambot.constants.MetricNames.OUTBOUND_DEPTH;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_METHOD;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_STATUS;
+import static by.smirnov.telegrambot.constants.MetricNames.TELEGRAM_REQUESTS;
+
+/**
+ * Единая точка отправки в Bot API. Вызовы выполняются через executeAsync и не ждут ответа сервера;
+ * сетевые ошибки и 5xx повторяются с экспоненциальной задержкой и jitter, 429 приостанавливает
+ * все отправки на retry_after. Частые правки одного сообщения склеиваются в одну.
+ * Каждый вызов Bot API пишется в метрику bot.telegram.requests с тегами method и status.
+ */
+@Component
+@Slf4j
+public class OutboundQueue {
+
+    private final OutboundConfig config;
+    private final ObjectProvider<TelegramBot> botProvider; //бот сам отправляет через очередь, поэтому берем его лениво
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PendingEdit> pendingEdits = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long pausedUntilMillis;
+
+    public OutboundQueue(OutboundConfig config, ObjectProvider<TelegramBot> botProvider, MeterRegistry registry) {
+        this.config = config;
+        this.botProvider = botProvider;
+        this.registry = registry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "outbound-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder(OUTBOUND_DEPTH, this, OutboundQueue::depth).register(registry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    public <T extends Serializable, M extends BotApiMethod<T>> CompletableFuture<T> submit(M method) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        result.whenComplete((response, error) -> inFlight.decrementAndGet());
+        attempt(method.getMethod(), () -> botProvider.getObject().executeAsync(method), 1, result);
+        return result;
+    }
+
+    /**
+     * Отправка файла из памяти. Документ собирается заново на каждую попытку: поток InputFile читается один раз.
+     */
+    public CompletableFuture<Message> sendDocument(long chatId, String fileName, byte[] content, String caption) {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        result.whenComplete((response, error) -> inFlight.decrementAndGet());
+        attempt(SendDocument.PATH, () -> {
+            SendDocument document = new SendDocument();
+            document.setChatId(String.valueOf(chatId));
+            document.setDocument(new InputFile(new ByteArrayInputStream(content), fileName));
+            document.setCaption(caption);
+            return botProvider.getObject().executeAsync(document);
+        }, 1, result);
+        return result;
+    }
+
+    public CompletableFuture<Message> sendText(long chatId, String text) {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId);
+        message.setText(text);
+        return submit(message);
+    }
+
+    /**
+     * Правка отправляется с задержкой coalesce-ms; если за это время пришла новая правка того же сообщения,
+     * уйдет только последняя, а все вызывающие получат один и тот же результат.
+     */
+    public CompletableFuture<Serializable> submitEdit(EditMessageText edit) {
+        String key = edit.getChatId() + ":" + edit.getMessageId();
+        PendingEdit created = new PendingEdit(edit);
+        PendingEdit pending = pendingEdits.merge(key, created, (existing, next) -> existing.replace(next.edit));
+        if (pending == created && !schedule(() -> flushEdit(key), config.getCoalesceMs(), created.result)) {
+            pendingEdits.remove(key, created);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Сколько отправок принято, но еще не завершено (включая ожидающие повтора и склейки правок).
+     */
+    public int depth() {
+        return inFlight.get() + pendingEdits.size();
+    }
+
+    private void flushEdit(String key) {
+        PendingEdit pending = pendingEdits.remove(key);
+        if (pending != null) {
+            submit(pending.edit).whenComplete((response, error) -> {
+                if (error == null) {
+                    pending.result.complete(response);
+                } else {
+                    pending.result.completeExceptionally(error);
+                }
+            });
+        }
+    }
+
+    private <T> void attempt(String method, ApiCall<T> call, int attempt, CompletableFuture<T> result) {
+        long pause = pausedUntilMillis - System.currentTimeMillis();
+        if (pause > 0) { //после 429 ждем окончания паузы, не тратя попытку
+            schedule(() -> attempt(method, call, attempt, result), pause, result);
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = call.execute();
+        } catch (TelegramApiException e) {
+            log.error(ERROR, e.getMessage());
+            record(method, e, start);
+            result.completeExceptionally(e);
+            return;
+        }
+        response.whenComplete((value, error) -> {
+            record(method, error, start);
+            if (error == null) {
+                result.complete(value);
+            } else if (attempt < config.getMaxAttempts() && TelegramErrors.isRetryable(error)) {
+                schedule(() -> attempt(method, call, attempt + 1, result), retryDelayMillis(error, attempt), result);
+            } else {
+                log.error(ERROR, error.getMessage());
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Откладывает задачу; после остановки очереди вызывающий сразу получает ошибку, а не ждет вечно.
+     */
+    private boolean schedule(Runnable task, long delayMillis, CompletableFuture<?> result) {
+        try {
+            scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.error(ERROR, e.getMessage());
+            result.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    private void record(String method, Throwable error, long start) {
+        int code = error == null ? 200 : TelegramErrors.errorCode(error);
+        String status = code == TelegramErrors.UNKNOWN ? "io" : String.valueOf(code);
+        Timer.builder(TELEGRAM_REQUESTS)
+                .tag(TAG_METHOD, method)
+                .tag(TAG_STATUS, status)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private long retryDelayMillis(Throwable error, int attempt) {
+        if (TelegramErrors.errorCode(error) == TelegramErrors.TOO_MANY_REQUESTS) {
+            long retryAfter = TelegramErrors.retryAfterSeconds(error);
+            log.warn(LOG_RETRY_AFTER, retryAfter);
+            long delay = TimeUnit.SECONDS.toMillis(retryAfter);
+            pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + delay); //429 действует на весь бот
+            return delay;
+        }
+        long backoff = config.getBackoffMs() << Math.min(attempt - 1, 10);
+        return backoff + ThreadLocalRandom.current().nextLong(backoff + 1); //jitter, чтобы повторы не шли волной
+    }
+
+    @FunctionalInterface
+    private interface ApiCall<T> { //один вызов Bot API; повторная попытка вызывает его заново
+
+        CompletableFuture<T> execute() throws TelegramApiException;
+    }
+
+    private static final class PendingEdit {
+
+        private final CompletableFuture<Serializable> result = new CompletableFuture<>();
+        private volatile EditMessageText edit;
+
+        private PendingEdit(EditMessageText edit) {
+            this.edit = edit;
+        }
+
+        private PendingEdit replace(EditMessageText latest) {
+            this.edit = latest;
+            return this;
+        }
+    }
+}
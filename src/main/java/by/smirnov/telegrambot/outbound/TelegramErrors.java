@@ -0,0 +1,55 @@
+package by.smirnov.telegrambot.outbound;
+
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+/**
+ * Разбор ошибок Bot API. Асинхронные вызовы оборачивают ответ сервера в несколько слоев исключений,
+ * поэтому нужная информация ищется по цепочке причин.
+ */
+public final class TelegramErrors {
+
+    public static final int BAD_REQUEST = 400;
+    public static final int FORBIDDEN = 403;
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVER_ERROR = 500;
+    public static final int UNKNOWN = -1;
+
+    private TelegramErrors() {
+    }
+
+    /**
+     * Код ошибки Bot API или {@link #UNKNOWN}, если сервер не ответил (сетевая ошибка).
+     */
+    public static int errorCode(Throwable error) {
+        TelegramApiRequestException requestError = find(error, TelegramApiRequestException.class);
+        return requestError != null && requestError.getErrorCode() != null ? requestError.getErrorCode() : UNKNOWN;
+    }
+
+    public static long retryAfterSeconds(Throwable error) {
+        TelegramApiRequestException requestError = find(error, TelegramApiRequestException.class);
+        ResponseParameters parameters = requestError != null ? requestError.getParameters() : null;
+        return parameters != null && parameters.getRetryAfter() != null ? parameters.getRetryAfter() : 1;
+    }
+
+    /**
+     * Повторять имеет смысл сетевые ошибки, 429 и 5xx; ошибки валидации и прочие 4xx не исправятся сами.
+     */
+    public static boolean isRetryable(Throwable error) {
+        if (find(error, TelegramApiValidationException.class) != null) {
+            return false;
+        }
+        int code = errorCode(error);
+        return code == UNKNOWN || code == TOO_MANY_REQUESTS || code >= SERVER_ERROR;
+    }
+
+    private static <E extends Throwable> E find(Throwable error, Class<E> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+        }
+        return null;
+    }
+}
@@ -1,7 +1,18 @@
 package by.smirnov.telegrambot.repository;
 
 import by.smirnov.telegrambot.model.Ads;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
 
 public interface AdsRepository extends CrudRepository<Ads, Long>{
+
+    @Transactional
+    @Modifying
+    @Query("update Ads a set a.shows = a.shows + 1, a.lastShownAt = :shownAt where a.id = :id")
+    void markShown(@Param("id") Long id, @Param("shownAt") Timestamp shownAt);
 }
@@ -0,0 +1,7 @@
+package by.smirnov.telegrambot.repository;
+
+import by.smirnov.telegrambot.model.BotState;
+import org.springframework.data.repository.CrudRepository;
+
+public interface BotStateRepository extends CrudRepository<BotState, String> {
+}
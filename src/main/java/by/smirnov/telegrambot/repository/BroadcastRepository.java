@@ -0,0 +1,27 @@
+package by.smirnov.telegrambot.repository;
+
+import by.smirnov.telegrambot.model.Broadcast;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+
+public interface BroadcastRepository extends CrudRepository<Broadcast, Long> {
+
+    long countByStatusNot(Broadcast.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("update Broadcast b set b.status = :status where b.id = :id and b.status <> :status")
+    void updateStatus(@Param("id") Long id, @Param("status") Broadcast.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("update Broadcast b set b.status = :status, b.sent = :sent, b.failed = :failed, "
+            + "b.finishedAt = :finishedAt where b.id = :id and b.status <> :status")
+    int finish(@Param("id") Long id, @Param("status") Broadcast.Status status,
+               @Param("sent") int sent, @Param("failed") int failed, @Param("finishedAt") Timestamp finishedAt);
+}
@@ -0,0 +1,38 @@
+package by.smirnov.telegrambot.repository;
+
+import by.smirnov.telegrambot.model.BroadcastShard;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface BroadcastShardRepository extends CrudRepository<BroadcastShard, BroadcastShard.Key> {
+
+    Optional<BroadcastShard> findFirstByDoneFalseAndShardInOrderByBroadcastIdAscShardAsc(Collection<Integer> shards);
+
+    long countByBroadcastIdAndDoneFalse(Long broadcastId);
+
+    @Query("select cast(coalesce(sum(s.sent), 0) as int) from BroadcastShard s where s.broadcastId = :id")
+    int sumSent(@Param("id") Long broadcastId);
+
+    @Query("select cast(coalesce(sum(s.failed), 0) as int) from BroadcastShard s where s.broadcastId = :id")
+    int sumFailed(@Param("id") Long broadcastId);
+
+    @Transactional
+    @Modifying
+    @Query("update BroadcastShard s set s.checkpointChatId = :checkpoint, s.sent = :sent, s.failed = :failed "
+            + "where s.broadcastId = :id and s.shard = :shard")
+    void saveProgress(@Param("id") Long broadcastId, @Param("shard") Integer shard,
+                      @Param("checkpoint") Long checkpoint, @Param("sent") int sent, @Param("failed") int failed);
+
+    @Transactional
+    @Modifying
+    @Query("update BroadcastShard s set s.done = true, s.sent = :sent, s.failed = :failed "
+            + "where s.broadcastId = :id and s.shard = :shard")
+    void finish(@Param("id") Long broadcastId, @Param("shard") Integer shard,
+                @Param("sent") int sent, @Param("failed") int failed);
+}
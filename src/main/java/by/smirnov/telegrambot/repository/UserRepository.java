@@ -1,7 +1,49 @@
 package by.smirnov.telegrambot.repository;
 
 import by.smirnov.telegrambot.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 
 public interface UserRepository extends CrudRepository<User, Long> {
+
+    @Query("select u.chatId from User u where u.chatId > :after and u.blockedAt is null order by u.chatId")
+    List<Long> findChatIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select u.chatId from User u where u.chatId > :after and u.blockedAt is null "
+            + "and mod(mod(u.chatId, :shards) + :shards, :shards) = :shard order by u.chatId")
+    List<Long> findChatIdsInShardAfter(@Param("after") Long after, @Param("shards") int shards,
+                                       @Param("shard") int shard, Pageable pageable);
+
+    @Query("select u.chatId from User u where u.chatId > :after and u.blockedAt is null "
+            + "and mod(mod(u.chatId, :shards) + :shards, :shards) = :shard and u.languageCode = :language "
+            + "and u.registeredAt >= :from and u.registeredAt < :to order by u.chatId")
+    List<Long> findChatIdsInLanguageAfter(@Param("after") Long after, @Param("shards") int shards,
+                                          @Param("shard") int shard, @Param("language") String language,
+                                          @Param("from") Timestamp from, @Param("to") Timestamp to,
+                                          Pageable pageable);
+
+    @Query("select u.chatId from User u where u.chatId > :after and u.blockedAt is null "
+            + "and mod(mod(u.chatId, :shards) + :shards, :shards) = :shard "
+            + "and u.registeredAt >= :from and u.registeredAt < :to order by u.chatId")
+    List<Long> findChatIdsRegisteredAfter(@Param("after") Long after, @Param("shards") int shards,
+                                          @Param("shard") int shard, @Param("from") Timestamp from,
+                                          @Param("to") Timestamp to, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.languageCode = :language where u.chatId = :chatId")
+    int updateLanguage(@Param("chatId") Long chatId, @Param("language") String language);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.blockedAt = :blockedAt where u.chatId in :chatIds")
+    int markBlocked(@Param("chatIds") Collection<Long> chatIds, @Param("blockedAt") Timestamp blockedAt);
 }
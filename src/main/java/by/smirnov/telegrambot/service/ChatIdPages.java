@@ -0,0 +1,93 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.model.Segment;
+import by.smirnov.telegrambot.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Ленивый обход chat_id пользователей (кроме заблокировавших бота), больших {@code afterChatId},
+ * страницами по ключу (keyset pagination): в памяти одновременно находится только одна страница
+ * идентификаторов, сущности не загружаются. При shards > 1 обходятся только чаты одного шарда,
+ * при заданном сегменте - только его пользователи (фильтр выполняет БД).
+ */
+class ChatIdPages implements Iterable<List<Long>> {
+
+    private static final Timestamp EARLIEST = new Timestamp(0);
+    private static final Timestamp LATEST = Timestamp.valueOf("9999-12-31 00:00:00");
+
+    private final UserRepository repository;
+    private final long afterChatId;
+    private final int pageSize;
+    private final int shards;
+    private final int shard;
+    private final Segment segment;
+
+    ChatIdPages(UserRepository repository, long afterChatId, int pageSize) {
+        this(repository, afterChatId, pageSize, 1, 0);
+    }
+
+    ChatIdPages(UserRepository repository, long afterChatId, int pageSize, int shards, int shard) {
+        this(repository, afterChatId, pageSize, shards, shard, Segment.ALL);
+    }
+
+    ChatIdPages(UserRepository repository, long afterChatId, int pageSize, int shards, int shard, Segment segment) {
+        this.repository = repository;
+        this.afterChatId = afterChatId;
+        this.pageSize = pageSize;
+        this.shards = shards;
+        this.shard = shard;
+        this.segment = segment;
+    }
+
+    @Override
+    public Iterator<List<Long>> iterator() {
+        return new Iterator<>() {
+            private long lastChatId = afterChatId;
+            private List<Long> page;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (page == null && !exhausted) {
+                    List<Long> fetched = fetch(lastChatId);
+                    exhausted = fetched.size() < pageSize;
+                    if (!fetched.isEmpty()) {
+                        page = fetched;
+                        lastChatId = fetched.get(fetched.size() - 1);
+                    }
+                }
+                return page != null;
+            }
+
+            @Override
+            public List<Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<Long> current = page;
+                page = null;
+                return current;
+            }
+        };
+    }
+
+    private List<Long> fetch(long after) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        if (!segment.isAll()) {
+            Timestamp from = segment.getRegisteredFrom() != null ? segment.getRegisteredFrom() : EARLIEST;
+            Timestamp to = segment.getRegisteredTo() != null ? segment.getRegisteredTo() : LATEST;
+            return segment.getLanguageCode() != null //отдельные запросы, чтобы работал индекс по языку
+                    ? repository.findChatIdsInLanguageAfter(after, shards, shard, segment.getLanguageCode(),
+                            from, to, page)
+                    : repository.findChatIdsRegisteredAfter(after, shards, shard, from, to, page);
+        }
+        return shards == 1
+                ? repository.findChatIdsAfter(after, page)
+                : repository.findChatIdsInShardAfter(after, shards, shard, page);
+    }
+}
@@ -0,0 +1,101 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.config.PrivacyConfig;
+import by.smirnov.telegrambot.model.User;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.template.Templates;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.EXPORT_FILE_NAME;
+import static by.smirnov.telegrambot.constants.BotConstants.NO_DATA_TEXT;
+
+/**
+ * Выгрузка данных пользователя по /mydata: выполняется пулом в фоне, данные пишутся потоково в JSON-документ,
+ * который уходит через {@link OutboundQueue}; краткая сводка - в подписи к документу.
+ */
+@Component
+@Slf4j
+public class DataExporter {
+
+    private final UserService userService;
+    private final OutboundQueue outboundQueue;
+    private final Templates templates;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ThreadPoolExecutor exporters;
+
+    public DataExporter(PrivacyConfig config, UserService userService, OutboundQueue outboundQueue,
+                        Templates templates) {
+        this.userService = userService;
+        this.outboundQueue = outboundQueue;
+        this.templates = templates;
+        AtomicInteger threads = new AtomicInteger();
+        this.exporters = new ThreadPoolExecutor(config.getExportThreads(), config.getExportThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getExportQueue()),
+                task -> new Thread(task, "data-export-" + threads.getAndIncrement()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        exporters.shutdownNow();
+    }
+
+    /**
+     * Ставит выгрузку в очередь. Возвращает false, если очередь заполнена.
+     */
+    public boolean export(long chatId) {
+        try {
+            exporters.execute(() -> run(chatId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void run(long chatId) {
+        try {
+            User user = userService.findById(chatId);
+            if (user == null) {
+                outboundQueue.sendText(chatId, NO_DATA_TEXT);
+                return;
+            }
+            String summary = templates.myData().fill(user.getChatId(), user.getFirstName(), user.getLastName(),
+                    user.getUserName(), user.getRegisteredAt());
+            outboundQueue.sendDocument(chatId, String.format(EXPORT_FILE_NAME, chatId), toJson(user), summary);
+        } catch (IOException | RuntimeException e) {
+            log.error(ERROR, e.getMessage());
+        }
+    }
+
+    private byte[] toJson(User user) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator json = jsonFactory.createGenerator(out).useDefaultPrettyPrinter()) {
+            json.writeStartObject();
+            json.writeNumberField("chat_id", user.getChatId());
+            json.writeStringField("first_name", user.getFirstName());
+            json.writeStringField("last_name", user.getLastName());
+            json.writeStringField("user_name", user.getUserName());
+            json.writeStringField("language_code", user.getLanguageCode());
+            json.writeStringField("registered_at", text(user.getRegisteredAt()));
+            json.writeStringField("blocked_at", text(user.getBlockedAt()));
+            json.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,131 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.config.PrivacyConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_PURGED;
+import static by.smirnov.telegrambot.constants.MetricNames.DB;
+import static by.smirnov.telegrambot.constants.MetricNames.PURGE_PENDING;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_OPERATION;
+
+/**
+ * Отложенное пакетное удаление пользователей по /deletedata: запросы копятся и пишутся одним
+ * delete ... where chat_id in (...) по размеру пачки или по таймеру, поток обработки апдейтов БД не ждет.
+ * Удаленные сразу считаются отсутствующими, а рассылки пропускают их и в страницах, прочитанных до удаления.
+ */
+@Component
+@Slf4j
+public class PurgeBuffer {
+
+    private static final String DELETE = "delete from tgbot.users where chat_id in ";
+
+    private final PrivacyConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer deleteTimer;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final Cache<Long, Boolean> purged; //удаленные недавно, включая еще не записанных в БД
+    private ScheduledExecutorService purger;
+    private volatile boolean closed;
+
+    public PurgeBuffer(PrivacyConfig config, JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.deleteTimer = registry.timer(DB, TAG_OPERATION, "purgeUsers");
+        this.purged = Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(config.getPurgedTtlMs())).build();
+        Gauge.builder(PURGE_PENDING, pending, Set::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "data-purger"));
+        purger.scheduleWithFixedDelay(this::flush,
+                config.getPurgeIntervalMs(), config.getPurgeIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        closed = true;
+        purger.shutdown();
+        flush(); //принятые запросы на удаление должны выполниться до закрытия пула соединений
+    }
+
+    public void add(long chatId) {
+        purged.put(chatId, Boolean.TRUE);
+        pending.add(chatId);
+        if (closed) {
+            flush();
+        } else if (pending.size() >= config.getPurgeBatchSize()) {
+            try {
+                purger.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    public boolean isPurged(long chatId) {
+        return purged.getIfPresent(chatId) != null;
+    }
+
+    /**
+     * Пользователь регистрируется снова: незаписанное удаление выполняется сразу, чтобы не удалить
+     * новую регистрацию, и рассылки снова до него доходят.
+     */
+    public void settle(long chatId) {
+        if (pending.contains(chatId)) {
+            flush();
+        }
+        purged.invalidate(chatId);
+    }
+
+    public synchronized void flush() {
+        List<Long> batch = new ArrayList<>();
+        for (Long chatId : pending) {
+            batch.add(chatId);
+            if (batch.size() == config.getPurgeBatchSize()) {
+                if (!delete(batch)) {
+                    return; //БД недоступна - остальное подождет следующей попытки
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            delete(batch);
+        }
+    }
+
+    private boolean delete(List<Long> batch) {
+        try {
+            String sql = DELETE + "(" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+            deleteTimer.record(() -> jdbcTemplate.update(sql, batch.toArray()));
+            batch.forEach(pending::remove);
+            log.info(LOG_PURGED, batch.size());
+            return true;
+        } catch (DataAccessException e) { //запросы остаются в буфере до следующей попытки
+            log.error(ERROR, e.getMessage());
+            return false;
+        }
+    }
+}
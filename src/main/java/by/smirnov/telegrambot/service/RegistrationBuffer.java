@@ -0,0 +1,173 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.config.RegistrationConfig;
+import by.smirnov.telegrambot.model.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_SAVED;
+import static by.smirnov.telegrambot.constants.MetricNames.DB;
+import static by.smirnov.telegrambot.constants.MetricNames.REGISTRATION_BUFFER;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_OPERATION;
+
+/**
+ * Отложенная пакетная запись новых пользователей: регистрации копятся в буфере и пишутся
+ * одним многострочным insert по размеру пачки или по таймеру. При остановке буфер дописывается.
+ */
+@Component
+@Slf4j
+public class RegistrationBuffer {
+
+    private static final String INSERT = "insert into tgbot.users as u "
+            + "(chat_id, first_name, last_name, user_name, registered_at, language_code) values ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+    //существующий пользователь не меняется, кроме снятия отметки о блокировке бота
+    private static final String ON_CONFLICT = " on conflict (chat_id) do update set blocked_at = null "
+            + "where u.blocked_at is not null";
+
+    private final RegistrationConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final Timer insertTimer;
+    private final Queue<User> pending = new ConcurrentLinkedQueue<>();
+    private final Map<Long, User> flushing = new ConcurrentHashMap<>(); //пачка, insert которой еще не завершен
+    private final AtomicInteger size = new AtomicInteger();
+    private ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    public RegistrationBuffer(RegistrationConfig config, JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertTimer = registry.timer(DB, TAG_OPERATION, "insertUsers");
+        Gauge.builder(REGISTRATION_BUFFER, size, AtomicInteger::get).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "registration-flusher"));
+        flusher.scheduleWithFixedDelay(this::flush,
+                config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        closed = true;
+        flusher.shutdown();
+        flush(); //все, что успело попасть в буфер, пишем до закрытия пула соединений
+    }
+
+    public void add(User user) {
+        pending.add(user);
+        int buffered = size.incrementAndGet();
+        if (closed) {
+            flush(); //после остановки пишем сразу
+        } else if (buffered >= config.getBatchSize()) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Убирает незаписанную регистрацию. Если insert с этим чатом уже идет, дожидается его: удаление,
+     * поставленное после возврата, выполнится после записи и не будет ею перекрыто.
+     */
+    public void discard(long chatId) {
+        if (pending.removeIf(user -> user.getChatId() == chatId)) {
+            size.decrementAndGet();
+        }
+        if (flushing.containsKey(chatId)) {
+            synchronized (this) { //неудачный insert мог вернуть пачку в буфер
+                if (pending.removeIf(user -> user.getChatId() == chatId)) {
+                    size.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Регистрация, которая еще ждет записи в БД или пишется прямо сейчас, или null.
+     */
+    public User find(long chatId) {
+        for (User user : pending) {
+            if (user.getChatId() == chatId) {
+                return user;
+            }
+        }
+        return flushing.get(chatId); //проверяется после буфера: пачка пополняется раньше, чем из него убирается
+    }
+
+    public synchronized void flush() {
+        for (User user = pending.peek(); user != null; user = pending.peek()) {
+            //один chat_id дважды в одном insert ... on conflict do update нельзя
+            boolean added = flushing.putIfAbsent(user.getChatId(), user) == null;
+            if (pending.remove(user)) {
+                size.decrementAndGet();
+            } else if (added) { //discard успел убрать регистрацию
+                flushing.remove(user.getChatId());
+            }
+            if (flushing.size() == config.getBatchSize() && !insertFlushing()) {
+                return; //БД недоступна - остальное подождет следующей попытки
+            }
+        }
+        if (!flushing.isEmpty()) {
+            insertFlushing();
+        }
+    }
+
+    private boolean insertFlushing() {
+        try {
+            return insert(new ArrayList<>(flushing.values()));
+        } finally {
+            flushing.clear(); //после commit пользователь уже находится в БД
+        }
+    }
+
+    private boolean insert(List<User> batch) {
+        Object[] args = new Object[batch.size() * 6];
+        int i = 0;
+        for (User user : batch) {
+            args[i++] = user.getChatId();
+            args[i++] = user.getFirstName();
+            args[i++] = user.getLastName();
+            args[i++] = user.getUserName();
+            args[i++] = user.getRegisteredAt();
+            args[i++] = user.getLanguageCode();
+        }
+        try {
+            String sql = INSERT + String.join(", ", Collections.nCopies(batch.size(), ROW)) + ON_CONFLICT;
+            insertTimer.record(() -> jdbcTemplate.update(sql, args));
+            log.info(LOG_SAVED, batch.size());
+            return true;
+        } catch (DataAccessException e) {
+            log.error(ERROR, e.getMessage());
+            if (!closed) { //вернем пачку в буфер, следующая попытка - по таймеру
+                pending.addAll(batch);
+                size.addAndGet(batch.size());
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.config.CacheConfig;
+import by.smirnov.telegrambot.model.User;
+import by.smirnov.telegrambot.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_CACHE_WARMED;
+
+/**
+ * Кэш зарегистрированных пользователей перед {@link UserRepository}: множество известных chat_id
+ * (прогревается при старте из tgbot.users) и небольшой кэш сущностей для findById.
+ */
+@Component
+@Slf4j
+public class UserCache {
+
+    private final CacheConfig config;
+    private final UserRepository repository;
+    private final Cache<Long, Boolean> knownChatIds;
+    private final Cache<Long, User> users;
+
+    public UserCache(CacheConfig config, UserRepository repository) {
+        this.config = config;
+        this.repository = repository;
+        this.knownChatIds = Caffeine.newBuilder().maximumSize(config.getKnownUsers()).build();
+        this.users = Caffeine.newBuilder().maximumSize(config.getUsers()).build();
+    }
+
+    @PostConstruct
+    public void warmUp() { //прогрев в фоне: до его окончания промахи просто идут в БД
+        Thread warmer = new Thread(this::load, "user-cache-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    public boolean isKnown(long chatId) {
+        return knownChatIds.getIfPresent(chatId) != null;
+    }
+
+    public void markKnown(long chatId) {
+        knownChatIds.put(chatId, Boolean.TRUE);
+    }
+
+    public User get(long chatId, LongFunction<User> loader) {
+        return users.get(chatId, loader::apply); //null из loader не кэшируется
+    }
+
+    public void evict(long chatId) {
+        knownChatIds.invalidate(chatId);
+        users.invalidate(chatId);
+    }
+
+    private void load() {
+        long loaded = 0;
+        try {
+            for (List<Long> page : new ChatIdPages(repository, Long.MIN_VALUE, config.getWarmupPageSize())) {
+                page.forEach(this::markKnown);
+                loaded += page.size();
+                if (loaded >= config.getKnownUsers()) {
+                    break; //дальше прогрев только вытеснял бы уже загруженные записи
+                }
+            }
+            log.info(LOG_CACHE_WARMED, loaded);
+        } catch (RuntimeException e) {
+            log.error(ERROR, e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package by.smirnov.telegrambot.service;
 
+import by.smirnov.telegrambot.model.Segment;
 import by.smirnov.telegrambot.model.User;
 import org.telegram.telegrambots.meta.api.objects.Message;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserService {
 
     void registerUser(Message message);
-    List<User> findAll();
+    void saveLanguage(long chatId, org.telegram.telegrambots.meta.api.objects.User from, String languageCode);
+    Iterable<List<Long>> findChatIdPages(Segment segment, int shards, int shard, long afterChatId, int pageSize);
+    void markBlocked(Collection<Long> chatIds);
     User findById(long id);
+    void deleteUser(long chatId);
+    boolean isDeleted(long chatId);
 }
@@ -1,16 +1,20 @@
 package by.smirnov.telegrambot.service;
 
+import by.smirnov.telegrambot.model.Segment;
 import by.smirnov.telegrambot.model.User;
 import by.smirnov.telegrambot.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.objects.Message;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
-import static by.smirnov.telegrambot.constants.BotConstants.LOG_SAVED;
+import static by.smirnov.telegrambot.constants.MetricNames.DB;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_OPERATION;
 
 @Service
 @RequiredArgsConstructor
@@ -18,31 +22,89 @@ import static by.smirnov.telegrambot.constants.BotConstants.LOG_SAVED;
 public class UserServiceImpl implements UserService{
 
     private final UserRepository repository;
+    private final UserCache cache;
+    private final RegistrationBuffer registrationBuffer;
+    private final PurgeBuffer purgeBuffer;
+    private final MeterRegistry registry;
 
     @Override
     public void registerUser(Message message) {
-        if (repository.findById(message.getChatId()).isEmpty()) {
-            var chatId = message.getChatId();
-            var chat = message.getChat();
-            User user = new User();
-            user.setChatId(chatId);
-            user.setFirstName(chat.getFirstName());
-            user.setLastName(chat.getLastName());
-            user.setUserName(chat.getUserName());
-            user.setRegisteredAt(new Timestamp(System.currentTimeMillis()));
-
-            repository.save(user);
-            log.info(LOG_SAVED, user);
+        var chatId = message.getChatId();
+        if (cache.isKnown(chatId)) { //повторный /start не ходит в БД
+            return;
         }
+        var chat = message.getChat();
+        String languageCode = message.getFrom() != null ? message.getFrom().getLanguageCode() : null;
+        register(chatId, chat.getFirstName(), chat.getLastName(), chat.getUserName(), languageCode);
     }
 
+    /**
+     * Язык новостей, выбранный кнопками. Незарегистрированный пользователь регистрируется сразу с этим языком.
+     */
     @Override
-    public List<User> findAll() {
-        return (List<User>) repository.findAll();
+    public void saveLanguage(long chatId, org.telegram.telegrambots.meta.api.objects.User from, String languageCode) {
+        int updated = registry.timer(DB, TAG_OPERATION, "updateLanguage")
+                .record(() -> repository.updateLanguage(chatId, languageCode));
+        if (updated > 0) {
+            cache.evict(chatId); //сущность перечитается уже с новым языком
+            cache.markKnown(chatId);
+            return;
+        }
+        registrationBuffer.discard(chatId); //еще не записанная регистрация без языка уступает место новой
+        register(chatId, from.getFirstName(), from.getLastName(), from.getUserName(), languageCode);
+    }
+
+    private void register(long chatId, String firstName, String lastName, String userName, String languageCode) {
+        purgeBuffer.settle(chatId); //если пользователь только что удалил данные, сначала дописываем удаление
+        User user = new User();
+        user.setChatId(chatId);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setUserName(userName);
+        user.setRegisteredAt(new Timestamp(System.currentTimeMillis()));
+        user.setLanguageCode(languageCode);
+
+        cache.evict(chatId); //сущность после записи перечитается из БД: пользователь мог быть в ней и раньше
+        cache.markKnown(chatId);
+        registrationBuffer.add(user); //запишется пачкой, существующий chat_id не перезапишется (on conflict)
+    }
+
+    @Override
+    public Iterable<List<Long>> findChatIdPages(Segment segment, int shards, int shard, long afterChatId,
+                                                int pageSize) {
+        return new ChatIdPages(repository, afterChatId, pageSize, shards, shard, segment);
+    }
+
+    @Override
+    public void markBlocked(Collection<Long> chatIds) {
+        registry.timer(DB, TAG_OPERATION, "markBlocked")
+                .record(() -> repository.markBlocked(chatIds, new Timestamp(System.currentTimeMillis())));
+        chatIds.forEach(cache::evict); //после /start пользователь снова зарегистрируется и будет разблокирован
     }
 
     @Override
     public User findById(long id) {
-        return repository.findById(id).orElse(null);
+        if (purgeBuffer.isPurged(id)) { //удаление могло еще не дойти до БД
+            return null;
+        }
+        User buffered = registrationBuffer.find(id); //до чтения из БД: insert может завершиться во время чтения
+        User user = cache.get(id, key -> registry.timer(DB, TAG_OPERATION, "findById")
+                .record(() -> repository.findById(key).orElse(null)));
+        if (user != null) {
+            return user;
+        }
+        return buffered != null ? buffered : registrationBuffer.find(id); //новый пользователь, еще не записанный в БД
+    }
+
+    @Override
+    public void deleteUser(long chatId) {
+        registrationBuffer.discard(chatId); //иначе еще не записанная или пишущаяся регистрация вернет пользователя
+        cache.evict(chatId);
+        purgeBuffer.add(chatId); //запишется пачкой в фоне
+    }
+
+    @Override
+    public boolean isDeleted(long chatId) {
+        return purgeBuffer.isPurged(chatId);
     }
 }
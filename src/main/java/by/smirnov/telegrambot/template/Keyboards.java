@@ -0,0 +1,181 @@
+package by.smirnov.telegrambot.template;
+
+import by.smirnov.telegrambot.conversation.CallbackData;
+import by.smirnov.telegrambot.conversation.DeleteDataFlow;
+import by.smirnov.telegrambot.conversation.RegistrationFlow;
+import by.smirnov.telegrambot.conversation.SettingsFlow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_CANCEL;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_CONFIRM_DELETE;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_DELETE_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_MY_DATA;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_NO;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_REGISTER;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_SAVE;
+import static by.smirnov.telegrambot.constants.BotConstants.BUTTON_YES;
+import static by.smirnov.telegrambot.constants.BotConstants.LANGUAGES;
+
+/**
+ * Клавиатуры бота. Собираются один раз при старте и переиспользуются всеми сообщениями.
+ * Инлайн-клавиатуры, которые ставятся при правке сообщения, остаются объектами: EditMessageText
+ * принимает только InlineKeyboardMarkup, поэтому их нельзя заменить на {@link PrebuiltKeyboard}.
+ */
+@Component
+public class Keyboards {
+
+    private final ReplyKeyboard mainMenu;
+    private final ReplyKeyboard registerConfirm;
+    private final InlineKeyboardMarkup registerLanguages;
+    private final InlineKeyboardMarkup settings;
+    private final ReplyKeyboard deleteConfirm;
+
+    public Keyboards() throws TelegramApiValidationException {
+        ObjectMapper mapper = new ObjectMapper();
+        this.mainMenu = new PrebuiltKeyboard(buildMainMenu(), mapper);
+        this.registerConfirm = new PrebuiltKeyboard(buildRegisterConfirm(), mapper);
+        this.registerLanguages = buildLanguages(RegistrationFlow.FLOW, RegistrationFlow.LANGUAGE,
+                RegistrationFlow.CHOOSE);
+        this.registerLanguages.validate();
+        this.settings = buildSettings();
+        this.settings.validate();
+        this.deleteConfirm = new PrebuiltKeyboard(buildDeleteConfirm(), mapper);
+    }
+
+    /**
+     * Reply-клавиатура главного меню, показывается после /start.
+     */
+    public ReplyKeyboard mainMenu() {
+        return mainMenu;
+    }
+
+    /**
+     * Инлайн-кнопки Yes/No подтверждения регистрации.
+     */
+    public ReplyKeyboard registerConfirm() {
+        return registerConfirm;
+    }
+
+    /**
+     * Инлайн-кнопки выбора языка новостей при регистрации.
+     */
+    public InlineKeyboardMarkup registerLanguages() {
+        return registerLanguages;
+    }
+
+    /**
+     * Инлайн-кнопки /settings: языки новостей, Save и Cancel.
+     */
+    public InlineKeyboardMarkup settings() {
+        return settings;
+    }
+
+    /**
+     * Инлайн-кнопки подтверждения удаления данных: "Yes, delete" и Cancel.
+     */
+    public ReplyKeyboard deleteConfirm() {
+        return deleteConfirm;
+    }
+
+    private static ReplyKeyboardMarkup buildMainMenu() {
+
+        ReplyKeyboardMarkup keyboardMarkup = new ReplyKeyboardMarkup(); //Объект класса клавиатуры вариантов ответов
+        List<KeyboardRow> keyboardRows = new ArrayList<>(); //создаем список рядов кнопок
+
+        KeyboardRow row = new KeyboardRow(); //создаем ряд с кнопками
+        row.add("weather"); //заполняем ряд конкретными кнопками, передаваемое значение - надпись на кнопке + ответ,
+        row.add("get random joke"); //который будет выдан при нажатии
+        keyboardRows.add(row); //добавляем ряд в клавиатуру
+
+        row = new KeyboardRow(); //создаем еще один ряд
+        row.add(BUTTON_REGISTER); //добавляем еще кнопки, их тексты - алиасы команд в CommandRouter
+        row.add(BUTTON_MY_DATA);
+        row.add(BUTTON_DELETE_DATA);
+        keyboardRows.add(row); //добавляем ряд в клавиатуру
+
+        keyboardMarkup.setKeyboard(keyboardRows); //список с рядами передаем в объект клавиатуры
+
+        return keyboardMarkup;
+    }
+
+    private static InlineKeyboardMarkup buildRegisterConfirm() {
+
+        InlineKeyboardMarkup keybdMarkup = new InlineKeyboardMarkup(); //создаем объект клавиатуры, принадлежащий сообщению
+        List<List<InlineKeyboardButton>> keybd = new ArrayList<>(); //аргумент клавиатуры требует списка списков кнопок
+        List<InlineKeyboardButton> buttonsRow = new ArrayList<>(); //создаем список для кнопок (ряд кнопок)
+
+        var yesButton = new InlineKeyboardButton(); //создаем кнопку
+        yesButton.setText(BUTTON_YES); //надпись на кнопке
+        yesButton.setCallbackData(CallbackData.of(RegistrationFlow.FLOW, RegistrationFlow.CONFIRM,
+                RegistrationFlow.YES).encode()); //значение, которое будет возвращать кнопка при нажатии
+
+        var noButton = new InlineKeyboardButton();
+        noButton.setText(BUTTON_NO);
+        noButton.setCallbackData(CallbackData.of(RegistrationFlow.FLOW, RegistrationFlow.CONFIRM,
+                RegistrationFlow.NO).encode());
+
+        buttonsRow.add(yesButton); //добавляем кнопки в ряд (список кнопок)
+        buttonsRow.add(noButton);
+
+        keybd.add(buttonsRow); //добавляем ряд кнопок в клавиатуру
+
+        keybdMarkup.setKeyboard(keybd); //передаем сформированную клавиатуру в объект клавиатуры сообщения
+
+        return keybdMarkup;
+    }
+
+    private static InlineKeyboardMarkup buildLanguages(char flow, int step, char action) {
+        InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        rows.add(languageRow(flow, step, action));
+        keyboard.setKeyboard(rows);
+        return keyboard;
+    }
+
+    private static InlineKeyboardMarkup buildSettings() {
+        InlineKeyboardMarkup keyboard = buildLanguages(SettingsFlow.FLOW, SettingsFlow.EDIT, SettingsFlow.CHOOSE);
+        List<InlineKeyboardButton> controls = new ArrayList<>();
+        controls.add(button(BUTTON_SAVE, CallbackData.of(SettingsFlow.FLOW, SettingsFlow.EDIT, SettingsFlow.SAVE)));
+        controls.add(button(BUTTON_CANCEL,
+                CallbackData.of(SettingsFlow.FLOW, SettingsFlow.EDIT, SettingsFlow.CANCEL)));
+        keyboard.getKeyboard().add(controls);
+        return keyboard;
+    }
+
+    private static InlineKeyboardMarkup buildDeleteConfirm() {
+        List<InlineKeyboardButton> row = new ArrayList<>();
+        row.add(button(BUTTON_CONFIRM_DELETE,
+                CallbackData.of(DeleteDataFlow.FLOW, DeleteDataFlow.CONFIRM, DeleteDataFlow.YES)));
+        row.add(button(BUTTON_CANCEL, CallbackData.of(DeleteDataFlow.FLOW, DeleteDataFlow.CONFIRM, DeleteDataFlow.NO)));
+        List<List<InlineKeyboardButton>> rows = new ArrayList<>();
+        rows.add(row);
+        InlineKeyboardMarkup keyboard = new InlineKeyboardMarkup();
+        keyboard.setKeyboard(rows);
+        return keyboard;
+    }
+
+    private static List<InlineKeyboardButton> languageRow(char flow, int step, char action) {
+        List<InlineKeyboardButton> row = new ArrayList<>();
+        for (int i = 0; i < LANGUAGES.size(); i++) { //в payload - индекс языка, а не код: короче и не зависит от текста
+            row.add(button(LANGUAGES.get(i), CallbackData.of(flow, step, action, String.valueOf(i))));
+        }
+        return row;
+    }
+
+    private static InlineKeyboardButton button(String text, CallbackData data) {
+        InlineKeyboardButton button = new InlineKeyboardButton();
+        button.setText(text);
+        button.setCallbackData(data.encode());
+        return button;
+    }
+}
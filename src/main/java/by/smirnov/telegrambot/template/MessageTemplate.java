@@ -0,0 +1,40 @@
+package by.smirnov.telegrambot.template;
+
+import java.util.regex.Pattern;
+
+/**
+ * Заранее разобранный шаблон сообщения с плейсхолдерами {@code %s}. Заполнение - простая склейка
+ * готовых частей, без разбора формата на каждый вызов, как у {@link String#format}.
+ */
+public final class MessageTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("%s", Pattern.LITERAL);
+
+    private final String[] parts;
+    private final int constantLength;
+
+    private MessageTemplate(String[] parts) {
+        this.parts = parts;
+        int length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        this.constantLength = length;
+    }
+
+    public static MessageTemplate of(String pattern) {
+        return new MessageTemplate(PLACEHOLDER.split(pattern, -1));
+    }
+
+    public String fill(Object... args) {
+        if (args.length != parts.length - 1) {
+            throw new IllegalArgumentException("Expected " + (parts.length - 1) + " arguments, got " + args.length);
+        }
+        StringBuilder text = new StringBuilder(constantLength + 16 * args.length);
+        text.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            text.append(args[i - 1]).append(parts[i]);
+        }
+        return text.toString();
+    }
+}
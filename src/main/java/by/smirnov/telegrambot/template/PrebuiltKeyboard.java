@@ -0,0 +1,49 @@
+package by.smirnov.telegrambot.template;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboard;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.io.IOException;
+
+/**
+ * Клавиатура, проверенная и сериализованная в JSON один раз. При отправке сообщения
+ * ее JSON вставляется в запрос как есть, объектный граф кнопок не обходится заново.
+ */
+@JsonSerialize(using = PrebuiltKeyboard.RawJsonSerializer.class)
+public final class PrebuiltKeyboard implements ReplyKeyboard {
+
+    private final String json;
+
+    public PrebuiltKeyboard(ReplyKeyboard keyboard, ObjectMapper mapper) throws TelegramApiValidationException {
+        keyboard.validate();
+        try {
+            this.json = mapper.writeValueAsString(keyboard);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void validate() {
+        //проверена в конструкторе, изменить ее нельзя
+    }
+
+    public static class RawJsonSerializer extends StdSerializer<PrebuiltKeyboard> {
+
+        public RawJsonSerializer() {
+            super(PrebuiltKeyboard.class);
+        }
+
+        @Override
+        public void serialize(PrebuiltKeyboard value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeRawValue(value.json);
+        }
+    }
+}
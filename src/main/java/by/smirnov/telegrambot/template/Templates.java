@@ -0,0 +1,44 @@
+package by.smirnov.telegrambot.template;
+
+import com.vdurmont.emoji.EmojiParser;
+import org.springframework.stereotype.Component;
+
+import static by.smirnov.telegrambot.constants.BotConstants.DEFAULT_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.MY_DATA_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.SMILE_BLUSH;
+import static by.smirnov.telegrambot.constants.BotConstants.START_TEXT;
+
+/**
+ * Шаблоны ответов, подготовленные при старте: эмодзи уже заменены на unicode, постоянные аргументы подставлены.
+ */
+@Component
+public class Templates {
+
+    //Способ вставки эмодзи через библиотеку emoji-java.
+    // Shortcodes можно смотреть, например, здесь: https://emojipedia.org/
+    private final MessageTemplate start =
+            MessageTemplate.of(EmojiParser.parseToUnicode(String.format(START_TEXT, "%s", SMILE_BLUSH)));
+    private final MessageTemplate defaultReply = MessageTemplate.of(DEFAULT_TEXT);
+    private final MessageTemplate myData = MessageTemplate.of(MY_DATA_TEXT);
+
+    /**
+     * Приветствие, аргумент - имя пользователя.
+     */
+    public MessageTemplate start() {
+        return start;
+    }
+
+    /**
+     * Ответ на произвольный текст, аргумент - текст пользователя.
+     */
+    public MessageTemplate defaultReply() {
+        return defaultReply;
+    }
+
+    /**
+     * Данные пользователя: chat id, имя, фамилия, username, дата регистрации.
+     */
+    public MessageTemplate myData() {
+        return myData;
+    }
+}
@@ -0,0 +1,134 @@
+package by.smirnov.telegrambot.webhook;
+
+import by.smirnov.telegrambot.config.BotConfig;
+import by.smirnov.telegrambot.service.TelegramBot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.WebhookBot;
+import org.telegram.telegrambots.util.WebhookUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static by.smirnov.telegrambot.constants.BotConstants.ERROR;
+import static by.smirnov.telegrambot.constants.BotConstants.LOG_WEBHOOK_STARTED;
+
+/**
+ * Прием апдейтов через webhook на встроенном HTTP-сервере JDK (NIO).
+ * Тело запроса сразу десериализуется в {@link Update} и передается в тот же диспетчер, что и при long polling.
+ * Webhook регистрируется методом библиотеки {@link SetWebhook} через HTTP-клиент и настройки бота.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class WebhookServer implements WebhookBot {
+
+    private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    private static final String CALLBACK_PATH = "/callback"; //адрес webhook по правилам WebhookUtils
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int UNAUTHORIZED = 401;
+    private static final int METHOD_NOT_ALLOWED = 405;
+
+    private final BotConfig botConfig;
+    private final TelegramBot bot;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public void start() throws IOException, TelegramApiException {
+        executor = Executors.newFixedThreadPool(botConfig.getWebhookThreads());
+        server = HttpServer.create(new InetSocketAddress(botConfig.getWebhookPort()), 0);
+        server.createContext(CALLBACK_PATH + botConfig.getWebhookPath(), this::handle);
+        server.setExecutor(executor);
+        server.start();
+        registerWebhook();
+        log.info(LOG_WEBHOOK_STARTED, botConfig.getWebhookPort(), CALLBACK_PATH + botConfig.getWebhookPath());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1); //секунда на то, чтобы дописать ответы на уже принятые запросы
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+                return;
+            }
+            String secret = botConfig.getWebhookSecret();
+            if (!secret.isEmpty() && !secret.equals(exchange.getRequestHeaders().getFirst(SECRET_HEADER))) {
+                exchange.sendResponseHeaders(UNAUTHORIZED, -1);
+                return;
+            }
+            Update update;
+            try (InputStream body = exchange.getRequestBody()) {
+                update = mapper.readValue(body, Update.class);
+            } catch (JsonProcessingException e) {
+                log.error(ERROR, e.getMessage());
+                exchange.sendResponseHeaders(BAD_REQUEST, -1);
+                return;
+            }
+            onWebhookUpdateReceived(update);
+            exchange.sendResponseHeaders(OK, -1);
+        }
+    }
+
+    /**
+     * Тело ответа на webhook не используется: бот отправляет ответы отдельными запросами.
+     */
+    @Override
+    public BotApiMethod<?> onWebhookUpdateReceived(Update update) {
+        bot.onUpdateReceived(update);
+        return null;
+    }
+
+    @Override
+    public void setWebhook(SetWebhook setWebhook) throws TelegramApiException {
+        WebhookUtils.setWebhook(bot, this, setWebhook); //base-url, токен и разбор ошибок - как у остальных вызовов бота
+    }
+
+    @Override
+    public String getBotPath() {
+        return botConfig.getWebhookPath();
+    }
+
+    @Override
+    public String getBotUsername() {
+        return bot.getBotUsername();
+    }
+
+    @Override
+    public String getBotToken() {
+        return bot.getBotToken();
+    }
+
+    private void registerWebhook() throws TelegramApiException {
+        String secret = botConfig.getWebhookSecret();
+        setWebhook(SetWebhook.builder()
+                .url(botConfig.getWebhookUrl())
+                .maxConnections(botConfig.getWebhookThreads() * 10)
+                .secretToken(secret.isEmpty() ? null : secret)
+                .build());
+    }
+}
@@ -0,0 +1,98 @@
+-- Схема БД бота. Скрипт идемпотентный: для встроенной БД Spring выполняет его сам,
+-- для PostgreSQL - при spring.sql.init.mode=always (задано в профиле prod) или вручную.
+create schema if not exists tgbot;
+
+create table if not exists tgbot.users
+(
+    chat_id       bigint primary key,
+    first_name    varchar(255),
+    last_name     varchar(255),
+    user_name     varchar(255),
+    registered_at timestamp
+);
+
+alter table tgbot.users add column if not exists blocked_at timestamp;
+
+create table if not exists tgbot.ads
+(
+    id bigint primary key,
+    ad text
+);
+
+create table if not exists tgbot.broadcasts
+(
+    id                 bigint generated by default as identity primary key,
+    status             varchar(16) not null,
+    report_to          bigint,
+    checkpoint_chat_id bigint,
+    sent               integer     not null default 0,
+    failed             integer     not null default 0,
+    created_at         timestamp   not null,
+    finished_at        timestamp
+);
+
+create table if not exists tgbot.broadcast_texts
+(
+    broadcast_id bigint  not null references tgbot.broadcasts (id),
+    position     integer not null,
+    body         text    not null,
+    primary key (broadcast_id, position)
+);
+
+create table if not exists tgbot.bot_state
+(
+    name  varchar(64) primary key,
+    value text not null
+);
+
+alter table tgbot.broadcasts add column if not exists shards integer not null default 1;
+
+create table if not exists tgbot.broadcast_shards
+(
+    broadcast_id       bigint  not null references tgbot.broadcasts (id),
+    shard              integer not null,
+    checkpoint_chat_id bigint,
+    sent               integer not null default 0,
+    failed             integer not null default 0,
+    done               boolean not null default false,
+    primary key (broadcast_id, shard)
+);
+
+-- незавершенные рассылки, созданные до разбиения на шарды, продолжаются одним шардом с прежнего места
+insert into tgbot.broadcast_shards (broadcast_id, shard, checkpoint_chat_id, sent, failed)
+select b.id, 0, b.checkpoint_chat_id, b.sent, b.failed
+from tgbot.broadcasts b
+where b.status <> 'DONE'
+  and not exists (select 1 from tgbot.broadcast_shards s where s.broadcast_id = b.id);
+
+create table if not exists tgbot.cluster_nodes
+(
+    node_id      varchar(64) primary key,
+    heartbeat_at timestamp not null
+);
+
+create table if not exists tgbot.shard_leases
+(
+    shard      integer primary key,
+    owner      varchar(64),
+    expires_at timestamp
+);
+
+alter table tgbot.users add column if not exists language_code varchar(16);
+
+create index if not exists users_language_chat_id_idx on tgbot.users (language_code, chat_id);
+
+-- расписание и сегменты рекламы; пустые поля - без ограничений, как раньше
+alter table tgbot.ads add column if not exists starts_at timestamp;
+alter table tgbot.ads add column if not exists ends_at timestamp;
+alter table tgbot.ads add column if not exists language_code varchar(16);
+alter table tgbot.ads add column if not exists registered_from timestamp;
+alter table tgbot.ads add column if not exists registered_to timestamp;
+alter table tgbot.ads add column if not exists show_interval_minutes integer;
+alter table tgbot.ads add column if not exists max_shows integer;
+alter table tgbot.ads add column if not exists shows integer not null default 0;
+alter table tgbot.ads add column if not exists last_shown_at timestamp;
+
+alter table tgbot.broadcasts add column if not exists language_code varchar(16);
+alter table tgbot.broadcasts add column if not exists registered_from timestamp;
+alter table tgbot.broadcasts add column if not exists registered_to timestamp;
@@ -0,0 +1,105 @@
+package by.smirnov.telegrambot.broadcast;
+
+import by.smirnov.telegrambot.model.Broadcast;
+import by.smirnov.telegrambot.model.BroadcastShard;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BroadcastJobTest {
+
+    @Test
+    void movesCheckpointOnlyOverContiguousCompletedPages() {
+        BroadcastJob job = job(List.of("news"), null);
+        BroadcastJob.Page first = job.track(List.of(10L, 20L));
+        BroadcastJob.Page second = job.track(List.of(30L, 40L));
+        BroadcastJob.Page third = job.track(List.of(50L));
+
+        assertFalse(job.complete(second));
+        assertFalse(job.complete(second)); //вторая страница завершена раньше первой
+        assertNull(job.getCheckpoint());
+        assertFalse(job.complete(third));
+        assertNull(job.getCheckpoint());
+
+        assertFalse(job.complete(first));
+        assertNull(job.getCheckpoint()); //на первой странице осталась одна отправка
+        assertTrue(job.complete(first));
+        assertEquals(50L, job.getCheckpoint()); //сразу за все три страницы
+    }
+
+    @Test
+    void countsEveryTextOfEveryChat() {
+        BroadcastJob job = job(List.of("one", "two"), null);
+        BroadcastJob.Page page = job.track(List.of(10L, 20L));
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(job.complete(page));
+        }
+        assertTrue(job.complete(page));
+        assertEquals(20L, job.getCheckpoint());
+    }
+
+    @Test
+    void keepsCheckpointAtUnfinishedPage() {
+        BroadcastJob job = job(List.of("news"), 5L);
+        job.track(List.of(10L)); //не завершится: например, отправку прервала остановка
+        BroadcastJob.Page second = job.track(List.of(20L));
+
+        assertFalse(job.complete(second));
+        assertEquals(5L, job.getCheckpoint()); //возобновление начнется после сохраненного chat_id
+    }
+
+    @Test
+    void reachesLastPageForAnyCompletionOrder() {
+        BroadcastJob job = job(List.of("news"), null);
+        List<BroadcastJob.Page> sends = new ArrayList<>();
+        for (long page = 0; page < 50; page++) {
+            BroadcastJob.Page tracked = job.track(List.of(page * 10 + 1, page * 10 + 2, page * 10 + 3));
+            Collections.addAll(sends, tracked, tracked, tracked);
+        }
+        Collections.shuffle(sends, new Random(7));
+
+        long previous = Long.MIN_VALUE;
+        for (BroadcastJob.Page page : sends) {
+            job.complete(page);
+            Long checkpoint = job.getCheckpoint();
+            if (checkpoint != null) {
+                assertTrue(checkpoint >= previous, "checkpoint moved back");
+                previous = checkpoint;
+            }
+        }
+        assertEquals(493L, job.getCheckpoint());
+    }
+
+    @Test
+    void resumesCountersFromStoredProgress() {
+        BroadcastShard progress = new BroadcastShard(1L, 3);
+        progress.setSent(7);
+        progress.setFailed(2);
+        BroadcastJob job = new BroadcastJob(broadcast(List.of("news")), progress, List.of());
+
+        assertEquals(3, job.getShard());
+        assertEquals(9, job.processed());
+    }
+
+    private static BroadcastJob job(List<String> texts, Long checkpoint) {
+        BroadcastShard progress = new BroadcastShard(1L, 0);
+        progress.setCheckpointChatId(checkpoint);
+        return new BroadcastJob(broadcast(texts), progress, List.of());
+    }
+
+    private static Broadcast broadcast(List<String> texts) {
+        Broadcast broadcast = new Broadcast();
+        broadcast.setId(1L);
+        broadcast.setTexts(new ArrayList<>(texts));
+        return broadcast;
+    }
+}
@@ -0,0 +1,140 @@
+package by.smirnov.telegrambot.command;
+
+import by.smirnov.telegrambot.config.BotConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.MetricNames.COMMAND;
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_COMMAND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandRouterTest {
+
+    private static final long OWNER = 1;
+    private static final long USER = 2;
+
+    private final Recorder start = new Recorder("/start", List.of("begin"), false);
+    private final Recorder send = new Recorder("/send", List.of(), true);
+    private SimpleMeterRegistry registry;
+    private CommandRouter router;
+
+    @BeforeEach
+    void setUp() {
+        BotConfig botConfig = new BotConfig();
+        botConfig.setBotName("NewsBot");
+        botConfig.setOwnerId(OWNER);
+        registry = new SimpleMeterRegistry();
+        router = new CommandRouter(botConfig, List.of(start, send), registry);
+    }
+
+    @Test
+    void routesCommandWithPayload() {
+        assertTrue(router.route(message(USER, "/start  ref_42 extra")));
+
+        assertEquals(List.of("ref_42 extra"), start.arguments); //начальные пробелы аргументов отброшены
+        assertEquals(1, registry.get(COMMAND).tag(TAG_COMMAND, "/start").timer().count());
+    }
+
+    @Test
+    void routesCommandWithoutPayload() {
+        assertTrue(router.route(message(USER, "/start")));
+
+        assertEquals(List.of(""), start.arguments);
+    }
+
+    @Test
+    void routesCommandAddressedToThisBot() {
+        assertTrue(router.route(message(USER, "/START@newsbot payload")));
+
+        assertEquals(List.of("payload"), start.arguments); //регистр команды и имени бота не важен
+    }
+
+    @Test
+    void swallowsCommandAddressedToAnotherBot() {
+        assertTrue(router.route(message(USER, "/start@OtherBot payload"))); //не уходит в эхо-ответ
+
+        assertTrue(start.arguments.isEmpty());
+    }
+
+    @Test
+    void routesAliasOnlyByExactText() {
+        assertTrue(router.route(message(USER, "begin")));
+        assertFalse(router.route(message(USER, "begin now")));
+        assertFalse(router.route(message(USER, "/begin")));
+
+        assertEquals(List.of(""), start.arguments);
+    }
+
+    @Test
+    void ignoresUnknownCommandsAndPlainText() {
+        assertFalse(router.route(message(USER, "/unknown")));
+        assertFalse(router.route(message(USER, "hello")));
+        assertFalse(router.route(message(USER, "")));
+    }
+
+    @Test
+    void hidesOwnerOnlyCommandFromOthers() {
+        assertFalse(router.route(message(USER, "/send news")));
+        assertTrue(router.route(message(OWNER, "/send news")));
+
+        assertEquals(List.of("news"), send.arguments);
+    }
+
+    @Test
+    void rejectsDuplicateCommands() {
+        BotConfig botConfig = new BotConfig();
+        List<CommandHandler> handlers = List.of(start, new Recorder("/start", List.of(), false));
+
+        assertThrows(IllegalStateException.class, () -> new CommandRouter(botConfig, handlers, registry));
+    }
+
+    private static Message message(long chatId, String text) {
+        Message message = new Message();
+        message.setChat(new Chat(chatId, "private"));
+        message.setText(text);
+        return message;
+    }
+
+    private static final class Recorder implements CommandHandler {
+
+        private final String command;
+        private final List<String> aliases;
+        private final boolean ownerOnly;
+        private final List<String> arguments = new ArrayList<>();
+
+        private Recorder(String command, List<String> aliases, boolean ownerOnly) {
+            this.command = command;
+            this.aliases = aliases;
+            this.ownerOnly = ownerOnly;
+        }
+
+        @Override
+        public String command() {
+            return command;
+        }
+
+        @Override
+        public List<String> aliases() {
+            return aliases;
+        }
+
+        @Override
+        public boolean ownerOnly() {
+            return ownerOnly;
+        }
+
+        @Override
+        public void handle(CommandContext context) {
+            arguments.add(context.getArguments());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.config.SessionConfig;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import by.smirnov.telegrambot.service.UserService;
+import by.smirnov.telegrambot.template.Keyboards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.List;
+
+import static by.smirnov.telegrambot.constants.BotConstants.CALLBACK_EXPIRED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DATA_DELETED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DELETE_CANCELLED_TEXT;
+import static by.smirnov.telegrambot.constants.BotConstants.DELETE_CONFIRM_TEXT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class DeleteDataFlowTest {
+
+    private static final long CHAT = 77;
+
+    private SessionStore sessions;
+    private OutboundQueue outboundQueue;
+    private UserService userService;
+    private DeleteDataFlow flow;
+    private CallbackRouter router;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SessionConfig config = new SessionConfig();
+        config.setTtlMs(60_000);
+        config.setStripes(1);
+        config.setInitialCapacity(8);
+        sessions = new SessionStore(config, new SimpleMeterRegistry());
+        outboundQueue = mock(OutboundQueue.class);
+        userService = mock(UserService.class);
+        flow = new DeleteDataFlow(sessions, outboundQueue, new Keyboards(), userService);
+        router = new CallbackRouter(sessions, outboundQueue, List.of(flow));
+    }
+
+    @Test
+    void startOnlyAsksForConfirmation() {
+        flow.start(CHAT);
+
+        ArgumentCaptor<SendMessage> question = ArgumentCaptor.forClass(SendMessage.class);
+        verify(outboundQueue).submit(question.capture()); //кроме вопроса ничего не отправлено
+        assertEquals(DELETE_CONFIRM_TEXT, question.getValue().getText());
+        verify(userService, never()).deleteUser(anyLong());
+    }
+
+    @Test
+    void deletesAfterConfirmation() {
+        flow.start(CHAT);
+
+        assertNull(press(DeleteDataFlow.YES));
+
+        verify(userService).deleteUser(CHAT);
+        assertEquals(DATA_DELETED_TEXT, lastEdit().getText());
+        assertEquals(Session.NONE, sessions.get(CHAT));
+    }
+
+    @Test
+    void keepsDataOnCancel() {
+        flow.start(CHAT);
+
+        assertNull(press(DeleteDataFlow.NO));
+
+        verify(userService, never()).deleteUser(anyLong());
+        assertEquals(DELETE_CANCELLED_TEXT, lastEdit().getText());
+    }
+
+    @Test
+    void ignoresConfirmationWithoutSession() {
+        assertEquals(CALLBACK_EXPIRED_TEXT, press(DeleteDataFlow.YES)); //кнопка старого сообщения
+
+        verify(userService, never()).deleteUser(anyLong());
+        verify(outboundQueue, never()).submitEdit(any());
+    }
+
+    private String press(char action) {
+        Message message = new Message();
+        message.setChat(new Chat(CHAT, "private"));
+        message.setMessageId(10);
+        CallbackQuery query = new CallbackQuery();
+        query.setId("q");
+        query.setMessage(message);
+        query.setData(CallbackData.of(DeleteDataFlow.FLOW, DeleteDataFlow.CONFIRM, action).encode());
+        router.route(query);
+
+        verify(outboundQueue).submit(any(AnswerCallbackQuery.class)); //на каждое нажатие - ровно один ответ
+        ArgumentCaptor<AnswerCallbackQuery> answer = ArgumentCaptor.forClass(AnswerCallbackQuery.class);
+        verify(outboundQueue, atLeastOnce()).submit(answer.capture()); //последней отправлен ответ на нажатие
+        return answer.getValue().getText();
+    }
+
+    private EditMessageText lastEdit() {
+        ArgumentCaptor<EditMessageText> edit = ArgumentCaptor.forClass(EditMessageText.class);
+        verify(outboundQueue).submitEdit(edit.capture());
+        return edit.getValue();
+    }
+}
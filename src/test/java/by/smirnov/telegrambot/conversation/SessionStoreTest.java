@@ -0,0 +1,142 @@
+package by.smirnov.telegrambot.conversation;
+
+import by.smirnov.telegrambot.config.SessionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SessionStoreTest {
+
+    private static final int CAPACITY = 8;
+
+    @Test
+    void findsShiftedEntriesAfterDeletingAcrossWrapAround() {
+        SessionStore store = store(60_000);
+        long[] last = keysWithHome(CAPACITY - 1, 2);
+        long first = keysWithHome(0, 1)[0];
+        long a = last[0];
+        long b = last[1]; //занимает ячейку 0, перейдя через конец таблицы
+        long c = first; //домашняя 0 занята - ячейка 1
+        store.put(a, session(1));
+        store.put(b, session(2));
+        store.put(c, session(3));
+
+        store.remove(a); //b сдвигается обратно в 7, c - в свою домашнюю 0
+
+        assertEquals(Session.NONE, store.get(a));
+        assertEquals(session(2), store.get(b));
+        assertEquals(session(3), store.get(c));
+        assertEquals(2, store.size());
+
+        store.remove(b);
+        assertEquals(session(3), store.get(c));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void keepsEntryThatCannotMoveBeforeItsHome() {
+        SessionStore store = store(60_000);
+        long a = keysWithHome(CAPACITY - 1, 1)[0];
+        long[] ones = keysWithHome(1, 2);
+        store.put(a, session(1)); //7
+        store.put(ones[0], session(2)); //1
+        store.put(ones[1], session(3)); //2
+
+        store.remove(a); //ячейки 1 и 2 не в цепочке a: сдвигать нечего
+
+        assertEquals(session(2), store.get(ones[0]));
+        assertEquals(session(3), store.get(ones[1]));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void matchesMapUnderRandomPutsAndRemoves() {
+        SessionStore store = store(60_000);
+        Map<Long, Long> expected = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < 24; i++) { //мало ключей на маленькой таблице - длинные цепочки и переходы через край
+            keys.add((long) i * 1_000_003);
+        }
+        Random random = new Random(42);
+        for (int step = 0; step < 20_000; step++) {
+            long key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                store.remove(key);
+                expected.remove(key);
+            } else {
+                long session = session(step + 1);
+                store.put(key, session);
+                expected.put(key, session);
+            }
+            long probe = keys.get(random.nextInt(keys.size()));
+            assertEquals(expected.getOrDefault(probe, Session.NONE), store.get(probe), "step " + step);
+        }
+        assertEquals(expected.size(), store.size());
+        for (long key : keys) {
+            assertEquals(expected.getOrDefault(key, Session.NONE), store.get(key));
+        }
+    }
+
+    @Test
+    void expiresSessionsWithoutBreakingTheirProbeChain() throws InterruptedException {
+        SessionStore store = store(300);
+        long[] keys = keysWithHome(CAPACITY - 1, 3);
+        store.put(keys[0], session(1));
+        Thread.sleep(200);
+        store.put(keys[1], session(2));
+        store.put(keys[2], session(3));
+        Thread.sleep(150); //первая сессия истекла, остальные еще нет
+
+        assertEquals(session(3), store.get(keys[2]));
+        assertEquals(Session.NONE, store.get(keys[0]));
+        assertEquals(session(2), store.get(keys[1]));
+        assertEquals(session(3), store.get(keys[2]));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void rejectsCapacityThatIsNotPowerOfTwo() {
+        SessionConfig config = config(60_000);
+        config.setInitialCapacity(12);
+        assertThrows(IllegalArgumentException.class, () -> new SessionStore(config, new SimpleMeterRegistry()));
+    }
+
+    private static SessionStore store(long ttlMs) {
+        return new SessionStore(config(ttlMs), new SimpleMeterRegistry()); //без start: фоновая очистка не нужна
+    }
+
+    private static SessionConfig config(long ttlMs) {
+        SessionConfig config = new SessionConfig();
+        config.setTtlMs(ttlMs);
+        config.setStripes(1); //все ключи в одной части, чтобы управлять домашними ячейками
+        config.setInitialCapacity(CAPACITY);
+        config.setSweepIntervalMs(60_000);
+        return config;
+    }
+
+    private static long session(int data) {
+        return Session.of(RegistrationFlow.FLOW, 0, data);
+    }
+
+    /**
+     * Ключи с заданной домашней ячейкой; формула повторяет SessionStore.Stripe.home.
+     */
+    private static long[] keysWithHome(int home, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            if (((int) (key * 0x9E3779B97F4A7C15L >>> 32) & (CAPACITY - 1)) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,98 @@
+package by.smirnov.telegrambot.dispatch;
+
+import by.smirnov.telegrambot.config.BotConfig;
+import by.smirnov.telegrambot.config.FloodConfig;
+import by.smirnov.telegrambot.outbound.OutboundQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static by.smirnov.telegrambot.constants.MetricNames.FLOOD_CHATS;
+import static by.smirnov.telegrambot.constants.MetricNames.REPLY_SHED;
+import static by.smirnov.telegrambot.constants.MetricNames.UPDATE_THROTTLED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FloodGuardTest {
+
+    private static final long OWNER = 1;
+    private static final int BURST = 3;
+    private static final long INTERVAL_MS = 500; //120 апдейтов в минуту
+
+    private OutboundQueue outboundQueue;
+    private SimpleMeterRegistry registry;
+    private FloodGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        FloodConfig config = new FloodConfig();
+        config.setMessagesPerMinute(120);
+        config.setBurst(BURST);
+        config.setShedDepth(10);
+        BotConfig botConfig = new BotConfig();
+        botConfig.setOwnerId(OWNER);
+        outboundQueue = mock(OutboundQueue.class);
+        registry = new SimpleMeterRegistry();
+        guard = new FloodGuard(config, botConfig, outboundQueue, registry); //без start: очистка вызывается вручную
+    }
+
+    @Test
+    void allowsBurstThenThrottles() {
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(guard.tryAcquire(42), "update " + i);
+        }
+        assertFalse(guard.tryAcquire(42));
+        assertFalse(guard.tryAcquire(42));
+        assertTrue(guard.tryAcquire(43)); //у другого чата свое ведро
+
+        assertEquals(2, registry.counter(UPDATE_THROTTLED).count());
+    }
+
+    @Test
+    void refillsOnePermitPerInterval() throws InterruptedException {
+        for (int i = 0; i < BURST; i++) {
+            guard.tryAcquire(42);
+        }
+        assertFalse(guard.tryAcquire(42));
+
+        Thread.sleep(INTERVAL_MS + 100);
+
+        assertTrue(guard.tryAcquire(42));
+        assertFalse(guard.tryAcquire(42)); //за один интервал накопилось одно разрешение, а не весь burst
+    }
+
+    @Test
+    void neverThrottlesOwner() {
+        for (int i = 0; i < BURST * 10; i++) {
+            assertTrue(guard.tryAcquire(OWNER));
+        }
+        assertEquals(0, registry.counter(UPDATE_THROTTLED).count());
+    }
+
+    @Test
+    void evictsOnlyRefilledBuckets() throws InterruptedException {
+        guard.tryAcquire(42);
+        for (int i = 0; i < BURST; i++) {
+            guard.tryAcquire(43);
+        }
+
+        Thread.sleep(INTERVAL_MS + 100);
+        guard.evictIdle();
+
+        //у 42 за интервал восполнилось единственное потраченное разрешение, у 43 - только одно из трех
+        assertEquals(1, registry.get(FLOOD_CHATS).gauge().value());
+    }
+
+    @Test
+    void shedsOptionalRepliesWhenOutboundQueueIsDeep() {
+        when(outboundQueue.depth()).thenReturn(10);
+        assertTrue(guard.allowOptionalReply());
+
+        when(outboundQueue.depth()).thenReturn(11);
+        assertFalse(guard.allowOptionalReply());
+        assertEquals(1, registry.counter(REPLY_SHED).count());
+    }
+}
@@ -0,0 +1,97 @@
+package by.smirnov.telegrambot.dispatch;
+
+import by.smirnov.telegrambot.config.DispatcherConfig;
+import by.smirnov.telegrambot.model.BotState;
+import by.smirnov.telegrambot.repository.BotStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UpdateDeduplicatorTest {
+
+    private static final int WINDOW = 64;
+
+    private BotStateRepository repository;
+    private UpdateDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        DispatcherConfig config = new DispatcherConfig();
+        config.setDedupWindow(WINDOW);
+        config.setDedupFlushIntervalMs(60_000); //по таймеру в тестах ничего не сохраняется
+        repository = mock(BotStateRepository.class);
+        when(repository.findById(BotState.UPDATE_HIGH_WATER)).thenReturn(Optional.empty());
+        deduplicator = new UpdateDeduplicator(config, repository, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        deduplicator.stop();
+    }
+
+    @Test
+    void skipsRedeliveredUpdate() {
+        deduplicator.start();
+
+        assertTrue(deduplicator.firstSeen(1000));
+        assertTrue(deduplicator.firstSeen(1002));
+        assertFalse(deduplicator.firstSeen(1000));
+        assertTrue(deduplicator.firstSeen(1001)); //порядок доставки не важен
+        assertFalse(deduplicator.firstSeen(1002));
+    }
+
+    @Test
+    void treatsUpdatesOlderThanWindowAsProcessed() {
+        deduplicator.start();
+
+        assertTrue(deduplicator.firstSeen(1000));
+        assertTrue(deduplicator.firstSeen(1001 + WINDOW));
+        assertFalse(deduplicator.firstSeen(1001)); //окно сдвинулось, а апдейт не приходил
+        assertFalse(deduplicator.firstSeen(1001 - WINDOW / 2));
+    }
+
+    @Test
+    void skipsUpdatesUpToStoredHighWater() {
+        when(repository.findById(BotState.UPDATE_HIGH_WATER))
+                .thenReturn(Optional.of(new BotState(BotState.UPDATE_HIGH_WATER, "5000")));
+        deduplicator.start();
+        deduplicator.resume();
+
+        assertFalse(deduplicator.firstSeen(5000));
+        assertFalse(deduplicator.firstSeen(5000 - WINDOW / 2));
+        assertTrue(deduplicator.firstSeen(5001));
+    }
+
+    @Test
+    void restartsWhenUpdateIdSequenceIsReset() {
+        when(repository.findById(BotState.UPDATE_HIGH_WATER))
+                .thenReturn(Optional.of(new BotState(BotState.UPDATE_HIGH_WATER, "900000000")));
+        deduplicator.start();
+        deduplicator.resume();
+
+        assertTrue(deduplicator.firstSeen(12345)); //Telegram начал update_id заново
+        assertFalse(deduplicator.firstSeen(12345));
+        assertTrue(deduplicator.firstSeen(12346));
+
+        verify(repository, timeout(5000)).save(any(BotState.class)); //сохраняется сразу, не по таймеру
+
+        deduplicator.flush();
+        ArgumentCaptor<BotState> saved = ArgumentCaptor.forClass(BotState.class);
+        verify(repository, atLeastOnce()).save(saved.capture());
+        assertEquals("12346", saved.getValue().getValue());
+    }
+}
@@ -0,0 +1,205 @@
+package by.smirnov.telegrambot.outbound;
+
+import by.smirnov.telegrambot.config.OutboundConfig;
+import by.smirnov.telegrambot.service.TelegramBot;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static by.smirnov.telegrambot.constants.MetricNames.TAG_STATUS;
+import static by.smirnov.telegrambot.constants.MetricNames.TELEGRAM_REQUESTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboundQueueTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private TelegramBot bot;
+    private SimpleMeterRegistry registry;
+    private OutboundQueue queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        OutboundConfig config = new OutboundConfig();
+        config.setMaxAttempts(MAX_ATTEMPTS);
+        config.setBackoffMs(1);
+        config.setCoalesceMs(100);
+        bot = mock(TelegramBot.class);
+        ObjectProvider<TelegramBot> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(bot);
+        registry = new SimpleMeterRegistry();
+        queue = new OutboundQueue(config, provider, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() throws Exception {
+        Message sent = new Message();
+        respond(error(502, null), error(500, null), CompletableFuture.completedFuture(sent));
+
+        assertSame(sent, queue.submit(new SendMessage("1", "hi")).get(5, TimeUnit.SECONDS));
+
+        verifyCalls(3);
+        assertEquals(1, registry.get(TELEGRAM_REQUESTS).tag(TAG_STATUS, "502").timer().count());
+        assertEquals(1, registry.get(TELEGRAM_REQUESTS).tag(TAG_STATUS, "200").timer().count());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        respond(error(500, null));
+
+        CompletableFuture<Message> result = queue.submit(new SendMessage("1", "hi"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TelegramApiRequestException.class, e.getCause());
+        verifyCalls(MAX_ATTEMPTS);
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Exception {
+        respond(error(403, null)); //бот заблокирован - повтор не поможет
+
+        CompletableFuture<Message> result = queue.submit(new SendMessage("1", "hi"));
+
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        verifyCalls(1);
+    }
+
+    @Test
+    void pausesAllSendsForRetryAfter() throws Exception {
+        respond(error(429, 1), CompletableFuture.completedFuture(new Message()));
+        long start = System.currentTimeMillis();
+
+        CompletableFuture<Message> limited = queue.submit(new SendMessage("1", "first"));
+        CompletableFuture<Message> other = queue.submit(new SendMessage("2", "second")); //другой чат тоже ждет паузу
+        Thread.sleep(300);
+        verifyCalls(1);
+        assertEquals(2, queue.depth());
+
+        limited.get(5, TimeUnit.SECONDS);
+        other.get(5, TimeUnit.SECONDS);
+        assertTrue(System.currentTimeMillis() - start >= 1000, "sent before retry_after");
+        verifyCalls(3);
+    }
+
+    @Test
+    void coalescesEditsOfSameMessage() throws Exception {
+        respond(CompletableFuture.completedFuture(Boolean.TRUE));
+
+        CompletableFuture<Serializable> first = queue.submitEdit(edit(1, 10, "draft 1"));
+        CompletableFuture<Serializable> second = queue.submitEdit(edit(1, 10, "draft 2"));
+        CompletableFuture<Serializable> other = queue.submitEdit(edit(1, 11, "other"));
+        assertSame(first, second); //оба вызывающих получат результат одной правки
+        assertEquals(2, queue.depth());
+
+        first.get(5, TimeUnit.SECONDS);
+        other.get(5, TimeUnit.SECONDS);
+        ArgumentCaptor<BotApiMethod<Serializable>> sent = ArgumentCaptor.forClass(BotApiMethod.class);
+        verify(bot, times(2)).executeAsync(sent.capture());
+        List<String> texts = sent.getAllValues().stream().map(edit -> ((EditMessageText) edit).getText()).toList();
+        assertTrue(texts.containsAll(List.of("draft 2", "other")), texts.toString());
+    }
+
+    @Test
+    void failsRetryScheduledAfterShutdown() throws Exception {
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        respond(response);
+        CompletableFuture<Message> result = queue.submit(new SendMessage("1", "hi"));
+
+        queue.stop();
+        response.completeExceptionally(requestException(500, null)); //повтор уже некому выполнить
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void failsEditSubmittedAfterShutdown() {
+        queue.stop();
+
+        CompletableFuture<Serializable> result = queue.submitEdit(edit(1, 10, "late"));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, queue.depth()); //правка не осталась висеть в ожидании склейки
+    }
+
+    @Test
+    void sendsImmediatelyWithoutPause() throws Exception {
+        respond(CompletableFuture.completedFuture(new Message()));
+
+        CompletableFuture<Message> result = queue.submit(new SendMessage("1", "hi"));
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+    }
+
+    private void respond(Object first, Object... next) throws TelegramApiException {
+        doReturn(first, next).when(bot).executeAsync(any(BotApiMethod.class));
+    }
+
+    private void verifyCalls(int count) throws TelegramApiException {
+        verify(bot, times(count)).executeAsync(any(BotApiMethod.class));
+    }
+
+    private static EditMessageText edit(long chatId, int messageId, String text) {
+        EditMessageText edit = new EditMessageText();
+        edit.setChatId(String.valueOf(chatId));
+        edit.setMessageId(messageId);
+        edit.setText(text);
+        return edit;
+    }
+
+    private static <T> CompletableFuture<T> error(int code, Integer retryAfter) {
+        return CompletableFuture.failedFuture(requestException(code, retryAfter));
+    }
+
+    private static TelegramApiRequestException requestException(int code, Integer retryAfter) {
+        String parameters = retryAfter != null ? ", \"parameters\": {\"retry_after\": " + retryAfter + "}" : "";
+        String json = "{\"ok\": false, \"error_code\": " + code + ", \"description\": \"error " + code + "\""
+                + parameters + "}";
+        try {
+            ApiResponse<Serializable> response = new ObjectMapper().readValue(json, new TypeReference<>() {
+            });
+            return new TelegramApiRequestException("Error executing request", response);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package by.smirnov.telegrambot.service;
+
+import by.smirnov.telegrambot.config.RegistrationConfig;
+import by.smirnov.telegrambot.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegistrationBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RegistrationBuffer buffer;
+    private final CountDownLatch inserting = new CountDownLatch(1);
+    private final CountDownLatch commit = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        RegistrationConfig config = new RegistrationConfig();
+        config.setBatchSize(100);
+        config.setFlushIntervalMs(60_000); //по таймеру в тестах ничего не пишется
+        jdbcTemplate = mock(JdbcTemplate.class);
+        buffer = new RegistrationBuffer(config, jdbcTemplate, new SimpleMeterRegistry());
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commit.countDown();
+        buffer.stop();
+    }
+
+    @Test
+    void findSeesBatchWhileItsInsertIsRunning() throws Exception {
+        blockInsert(null);
+        buffer.add(user(1));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        assertNotNull(buffer.find(1)); //из очереди уже забрана, но еще не в БД
+
+        commit.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertNull(buffer.find(1));
+    }
+
+    @Test
+    void discardWaitsForRunningInsertOfThatChat() throws Exception {
+        blockInsert(null);
+        buffer.add(user(1));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> discard = CompletableFuture.runAsync(() -> buffer.discard(1));
+        Thread.sleep(100);
+        assertFalse(discard.isDone()); //удаление встанет в очередь только после записи
+
+        commit.countDown();
+        discard.get(5, TimeUnit.SECONDS);
+        flush.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void discardDropsBatchReturnedByFailedInsert() throws Exception {
+        blockInsert(new DataAccessResourceFailureException("db down"));
+        buffer.add(user(1));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(buffer::flush);
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> discard = CompletableFuture.runAsync(() -> buffer.discard(1));
+        Thread.sleep(100); //discard начался до того, как неудачный insert вернул пачку в буфер
+
+        commit.countDown();
+        discard.get(5, TimeUnit.SECONDS);
+        flush.get(5, TimeUnit.SECONDS);
+        assertNull(buffer.find(1));
+
+        buffer.flush();
+        verify(jdbcTemplate, times(1)).update(anyString(), (Object[]) any()); //повторной записи нет
+    }
+
+    @Test
+    void writesEachChatOncePerInsert() {
+        AtomicInteger values = new AtomicInteger();
+        when(jdbcTemplate.update(anyString(), (Object[]) any())).thenAnswer(invocation -> {
+            values.set(invocation.getArguments().length - 1); //параметры insert после текста запроса
+            return 2;
+        });
+        buffer.add(user(1));
+        buffer.add(user(1));
+        buffer.add(user(2));
+
+        buffer.flush();
+
+        assertEquals(2 * 6, values.get()); //две строки по шесть колонок
+        assertNull(buffer.find(1));
+    }
+
+    private void blockInsert(RuntimeException failure) {
+        when(jdbcTemplate.update(anyString(), (Object[]) any())).thenAnswer(invocation -> {
+            inserting.countDown();
+            assertTrue(commit.await(5, TimeUnit.SECONDS));
+            if (failure != null) {
+                throw failure;
+            }
+            return 1;
+        });
+    }
+
+    private static User user(long chatId) {
+        User user = new User();
+        user.setChatId(chatId);
+        return user;
+    }
+}